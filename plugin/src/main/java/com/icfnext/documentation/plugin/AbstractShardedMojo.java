@@ -0,0 +1,51 @@
+package com.icfnext.documentation.plugin;
+
+import com.icfnext.documentation.plugin.io.FileShards;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.util.Set;
+
+/**
+ * A goal whose scanned files can be partitioned into shards, so that a build can be spread over several processes
+ * or CI nodes; see {@link FileShards}.
+ */
+public abstract class AbstractShardedMojo extends AbstractMojo {
+
+    /**
+     * The 0-based index of the shard processed by this execution; see shardCount
+     */
+    @Parameter(defaultValue = "0")
+    protected int shardIndex;
+
+    /**
+     * The number of shards the scanned files are partitioned into, balanced by file size
+     */
+    @Parameter(defaultValue = "1")
+    protected int shardCount;
+    private Set<File> shardFiles;
+
+    /**
+     * Selects the files of this execution's shard, which must be the files the goal then scans
+     * @param excludedDir a directory the goal does not scan, or null
+     * @throws MojoExecutionException if the shard parameters are invalid
+     */
+    protected void selectShard(final File baseDir, final String fileRegex, final boolean recursive,
+            final File excludedDir) throws MojoExecutionException {
+        try {
+            shardFiles = FileShards.select(baseDir, fileRegex, recursive, excludedDir, shardIndex, shardCount);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    protected boolean isSharded() {
+        return shardFiles != null;
+    }
+
+    protected boolean isInShard(final File file) {
+        return shardFiles == null || shardFiles.contains(file);
+    }
+}
@@ -1,26 +1,26 @@
 package com.icfnext.documentation.plugin;
 
-import com.google.common.io.CharSink;
-import com.google.common.io.Files;
-import org.apache.maven.plugin.AbstractMojo;
+import com.icfnext.documentation.plugin.html.ProcessingMarker;
+import com.icfnext.documentation.plugin.html.TableOfContentsGenerator;
+import com.icfnext.documentation.plugin.io.FileShards;
+import com.icfnext.documentation.plugin.io.InputReader;
+import com.icfnext.documentation.plugin.io.OutputWriter;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
-import java.util.Stack;
 
-@Mojo(name = "add-table-of-contents")
-public class AddTableOfContentsMojo extends AbstractMojo {
+@Mojo(name = "add-table-of-contents", threadSafe = true)
+public class AddTableOfContentsMojo extends AbstractShardedMojo {
 
     private static final String CHARSET = "UTF-8";
-    private static final String ID_PREFIX = "section-";
+
+    private final OutputWriter outputWriter = new OutputWriter(Charset.forName(CHARSET));
 
     @Parameter(required = true)
     private File baseDir;
@@ -49,6 +49,9 @@ public class AddTableOfContentsMojo extends AbstractMojo {
     @Parameter(defaultValue = "h4")
     private String titleTag;
 
+    private ProcessingMarker marker;
+    private int upToDateCount;
+
     public void execute() throws MojoExecutionException {
         if (!baseDir.exists()) {
             throw new MojoExecutionException("Parameter baseDir doesn't exist: " + baseDir.getAbsolutePath());
@@ -56,18 +59,34 @@ public class AddTableOfContentsMojo extends AbstractMojo {
             throw new MojoExecutionException("Parameter baseDir is not a directory: " + baseDir.getAbsolutePath());
         }
         final String fileRegex = getFileRegex();
-        final String cssSelector = getCssSelector();
-        handleDirectory(baseDir, fileRegex, cssSelector);
+        selectShard(baseDir, fileRegex, recursive, null);
+        final String shardConflict =
+                FileShards.checkPageShard(getPluginContext(), "add-table-of-contents", shardCount);
+        if (shardConflict != null) {
+            getLog().warn(shardConflict);
+            if (failOnError) {
+                throw new MojoExecutionException("Pages are sharded twice: " + shardConflict);
+            }
+        }
+        final TableOfContentsGenerator generator =
+                new TableOfContentsGenerator(excludeH1, levelsToInclude, targetSelector, title, titleTag);
+        marker = new ProcessingMarker("add-table-of-contents", excludeH1, levelsToInclude,
+                targetSelector, title, titleTag);
+        handleDirectory(baseDir, fileRegex, generator);
+        if (upToDateCount > 0) {
+            getLog().info(upToDateCount + " page(s) already have a table of contents");
+        }
+        outputWriter.logSummary(getLog());
     }
 
-    private void handleDirectory(final File directory, final String fileRegex, final String headingSelector)
+    private void handleDirectory(final File directory, final String fileRegex, final TableOfContentsGenerator generator)
             throws MojoExecutionException {
         for (final File file : directory.listFiles()) {
             if (file.isDirectory() && recursive) {
-                handleDirectory(file, fileRegex, headingSelector);
-            } else if (file.isFile() && file.getName().matches(fileRegex)) {
+                handleDirectory(file, fileRegex, generator);
+            } else if (file.isFile() && file.getName().matches(fileRegex) && isInShard(file)) {
                 try {
-                    addTableOfContents(file, headingSelector);
+                    addTableOfContents(file, generator);
                 } catch (IOException e) {
                     if (failOnError) {
                         throw new MojoExecutionException("Failure adding table of contents", e);
@@ -77,107 +96,34 @@ public class AddTableOfContentsMojo extends AbstractMojo {
         }
     }
 
-    private void addTableOfContents(final File file, final String headingSelector)
+    private void addTableOfContents(final File file, final TableOfContentsGenerator generator)
             throws IOException, MojoExecutionException {
-
-        final Charset charset = Charset.forName(CHARSET);
-        final String html = Files.asCharSource(file, charset).read();
-        final Document document = Jsoup.parse(html);
-        final Elements target = document.select(targetSelector);
-        if (!target.isEmpty()) {
-            final Element targetElement = target.first();
-            if (title != null) {
-                targetElement.appendElement(titleTag).text(title);
-            }
-            final Stack<Element> tocListStack = new Stack<Element>();
-            final Element root = new Element("ol");
-            targetElement.appendChild(root);
-            tocListStack.push(root);
-            final Elements headingElements = document.select(headingSelector);
-            Element previousListItem = targetElement;
-            for (final Element headingElement : headingElements) {
-                final String text = headingElement.text();
-                final String tagName = headingElement.tagName();
-                final int level = elementTagToLevel(tagName);
-                int currentLevel = tocListStack.size();
-                if (level > currentLevel + 2) {
-                    // levels can only go up by one at a time
-                    throw new IllegalStateException("Illegal Heading: " + text);
-                }
-                while (currentLevel > level) {
-                    // we are coming from a deeper level -- close out lists
-                    tocListStack.pop();
-                    currentLevel = tocListStack.size();
-                }
-                final Element tocItem = new Element("li");
-                final Element parent;
-                if (level > currentLevel) {
-                    // increase level by nesting a new list below the previous item
-                    parent = new Element("ol");
-                    previousListItem.appendChild(parent);
-                    tocListStack.push(parent);
-                } else {
-                    // We're at the same level, so just add to the top-level list element
-                    parent = tocListStack.peek();
-                }
-                parent.appendChild(tocItem);
-                previousListItem = tocItem;
-                final String id = generateElementId(tocListStack);
-                headingElement.attr("id", id);
-                previousListItem.append("<a href='#" + id + "'>" + text + "</a>");
+        final ProcessingMarker.Status status = marker.check(file);
+        if (status == ProcessingMarker.Status.UP_TO_DATE) {
+            upToDateCount++;
+            return;
+        } else if (status == ProcessingMarker.Status.OUTDATED) {
+            getLog().warn("Table of contents was added to " + file + " with a different configuration, and the page"
+                    + " is left unchanged; delete it, or run mvn clean, to generate it again");
+            if (failOnError) {
+                throw new MojoExecutionException("Page was processed with a different configuration: " + file);
             }
-        } else {
+            return;
+        }
+        final String html = InputReader.readForRewrite(file);
+        final Document document = Jsoup.parse(html);
+        if (!generator.addTableOfContents(document)) {
             getLog().warn("Target selector found no elements: " + targetSelector);
             if (failOnError) {
                 throw new MojoExecutionException("Target selector not found: " + targetSelector);
             }
         }
+        marker.apply(document);
         final String updatedHtml = document.outerHtml();
-        final CharSink charSink = Files.asCharSink(file, charset);
-        charSink.write(updatedHtml);
-    }
-
-    private String getCssSelector() {
-        final int start = excludeH1 ? 2 : 1;
-        final int end = start + levelsToInclude;
-        final StringBuilder out = new StringBuilder();
-        for (int i = start; i < end; i++) {
-            out.append("h").append(i);
-            if (i < end - 1) {
-                out.append(", ");
-            }
-        }
-        return out.toString();
+        outputWriter.write(file, updatedHtml);
     }
 
     private String getFileRegex() {
         return fileMask.replaceAll("[*]", ".*");
     }
-
-    /**
-     * Converts a heading tag into a 1-indexed level, where 1 is the highest level shown in the ToC
-     * @param tag the element tag (h1-h6)
-     * @return the relative level
-     */
-    private int elementTagToLevel(final String tag) {
-        final String lowerTag = tag.toLowerCase();
-        if (!lowerTag.matches("h[0-6]")) {
-            throw new IllegalStateException("Illegal heading tag: " + tag);
-        }
-        final String levelString = tag.substring(1);
-        final int absoluteLevel = Integer.parseInt(levelString);
-        return absoluteLevel - (excludeH1 ? 1 : 0);
-    }
-
-    private static String generateElementId(final Stack<Element> tocStack) {
-        final StringBuilder out = new StringBuilder(ID_PREFIX);
-        for (int i = 0; i < tocStack.size(); i++) {
-            final Element element = tocStack.get(i);
-            out.append(element.childNodeSize());
-            if (i < tocStack.size() - 1) {
-                out.append(".");
-            }
-        }
-        return out.toString();
-    }
 }
@@ -0,0 +1,324 @@
+package com.icfnext.documentation.plugin;
+
+import com.google.common.hash.Hashing;
+import com.icfnext.documentation.plugin.cache.PluginCache;
+import com.icfnext.documentation.plugin.html.HtmlTransformerChain;
+import com.icfnext.documentation.plugin.html.HtmlTransformerFactory;
+import com.icfnext.documentation.plugin.html.TableOfContentsGenerator;
+import com.icfnext.documentation.plugin.io.FileHashIndex;
+import com.icfnext.documentation.plugin.io.OutputWriter;
+import com.icfnext.documentation.plugin.markdown.DocumentSplitter;
+import com.icfnext.documentation.plugin.markdown.IncludeGraph;
+import com.icfnext.documentation.plugin.markdown.MarkdownConverter;
+import com.icfnext.documentation.plugin.markdown.MarkdownRenderer;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.jsoup.nodes.Document;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders the documentation of every module in the reactor in a single execution. Each module's markdown is
+ * rendered as by markdown-to-html, with the same include, splitting and incremental handling, and then transformed
+ * and given a table of contents in the same pass, using a shared worker pool, parser, transformer instances and
+ * header/footer templates. Output is written to one combined tree, with a subdirectory per module.
+ */
+@Mojo(name = "aggregate", aggregator = true, threadSafe = true)
+public class AggregateDocumentationMojo extends AbstractMojo {
+
+    private static final String CHARSET = "UTF-8";
+    private static final String REL_PATH_SEGMENT = "../";
+
+    private final OutputWriter outputWriter = new OutputWriter(Charset.forName(CHARSET));
+
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
+    @Parameter(defaultValue = "docs")
+    private String docsDirectory;
+
+    @Parameter(defaultValue = "true")
+    private boolean failOnError;
+
+    @Parameter(defaultValue = "true")
+    private boolean recursive;
+
+    @Parameter(defaultValue = "true")
+    private boolean fixMarkdownLinks;
+
+    @Parameter(defaultValue = "*.md")
+    private String fileMask;
+
+    @Parameter(defaultValue = "${project.build.directory}/html")
+    private File outputDir;
+
+    /**
+     * As for markdown-to-html
+     */
+    @Parameter(defaultValue = "0")
+    private int splitHeadingLevel;
+
+    /**
+     * As for markdown-to-html
+     */
+    @Parameter(defaultValue = "0")
+    private int splitThreshold;
+
+    /**
+     * The directory, relative to each module's docs directory, against which include directives are resolved. If
+     * unset, they are resolved against the directory of the including file.
+     */
+    @Parameter
+    private String fragmentDirectory;
+
+    /**
+     * Whether to skip pages whose source, included fragments, header, footer and configuration are unchanged since
+     * the previous build
+     */
+    @Parameter(defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * Where the incremental build state of each module is kept between builds, in a subdirectory per module
+     */
+    @Parameter(defaultValue = "${project.build.directory}/documentation/aggregate")
+    private File stateDir;
+
+    @Parameter
+    private File headerHtmlFile;
+    private String headerHtml = "<html><header></header><body>";
+
+    @Parameter
+    private File footerHtmlFile;
+    private String footerHtml = "</body></html>";
+
+    @Parameter
+    private File frontendArtifactsDir;
+
+    @Parameter
+    private List<String> transformers = new ArrayList<>();
+
+    @Parameter(defaultValue = "true")
+    private boolean addTableOfContents;
+
+    @Parameter(defaultValue = "true")
+    private boolean excludeH1;
+
+    @Parameter(defaultValue = "3")
+    private int levelsToInclude;
+
+    @Parameter(defaultValue = "nav")
+    private String targetSelector;
+
+    @Parameter
+    private String title;
+
+    @Parameter(defaultValue = "h4")
+    private String titleTag;
+
+    /**
+     * The number of worker threads; 0 uses one per available processor
+     */
+    @Parameter(defaultValue = "0")
+    private int threads;
+
+    public void execute() throws MojoExecutionException {
+        final Charset charset = Charset.forName(CHARSET);
+        try {
+            if (headerHtmlFile != null) {
+                headerHtml = PluginCache.readFile(headerHtmlFile, charset);
+            }
+            if (footerHtmlFile != null) {
+                footerHtml = PluginCache.readFile(footerHtmlFile, charset);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to get html header/footer", e);
+        }
+        final HtmlTransformerChain transformerChain = new HtmlTransformerChain();
+        for (final String transformer : transformers) {
+            try {
+                transformerChain.add(HtmlTransformerFactory.getShared(transformer, getClass().getClassLoader()));
+            } catch (IllegalArgumentException | ReflectiveOperationException e) {
+                throw new MojoExecutionException("Failed to load transformer: " + transformer, e);
+            }
+        }
+        final MarkdownConverter converter = new MarkdownConverter(getLog(), fixMarkdownLinks);
+        final DocumentSplitter splitter = new DocumentSplitter(splitHeadingLevel, splitThreshold);
+        final TableOfContentsGenerator tocGenerator = addTableOfContents
+                ? new TableOfContentsGenerator(excludeH1, levelsToInclude, targetSelector, title, titleTag)
+                : null;
+        final MarkdownRenderer.PageProcessor pageProcessor = (source, html) -> {
+            final Document document = transformerChain.transformToDocument(html);
+            if (tocGenerator != null && !tocGenerator.addTableOfContents(document)) {
+                getLog().warn("Target selector found no elements in " + source + ": " + targetSelector);
+                if (failOnError) {
+                    throw new IOException("Target selector not found: " + targetSelector);
+                }
+            }
+            return document.outerHtml();
+        };
+        final String fileRegex = getFileRegex();
+
+        final List<MarkdownRenderer> renderers = new ArrayList<>();
+        final List<IncrementalState> incrementalStates = new ArrayList<>();
+        final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        final ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (final MavenProject project : session.getProjects()) {
+                final File docsDir = new File(project.getBasedir(), docsDirectory);
+                if (!docsDir.isDirectory()) {
+                    getLog().debug("No documentation found for " + project.getArtifactId());
+                    continue;
+                }
+                final File moduleOutputDir = new File(outputDir, project.getArtifactId());
+                final File fragmentDir = fragmentDirectory != null ? new File(docsDir, fragmentDirectory) : null;
+                final MarkdownRenderer renderer = new MarkdownRenderer(getLog(), outputWriter, converter, splitter,
+                        docsDir, fragmentDir, moduleOutputDir, headerHtml, footerHtml);
+                renderer.setPageProcessor(pageProcessor);
+                if (incremental) {
+                    final IncrementalState state = IncrementalState.load(new File(stateDir, project.getArtifactId()));
+                    renderer.setIncrementalState(state.includeGraph, state.hashIndex,
+                            getConfigurationFingerprint(moduleOutputDir, fragmentDir));
+                    incrementalStates.add(state);
+                }
+                renderers.add(renderer);
+                submitDirectory(executor, futures, docsDir, fileRegex, REL_PATH_SEGMENT, renderer, fragmentDir);
+            }
+            if (frontendArtifactsDir != null) {
+                submitFrontendArtifacts(executor, futures, frontendArtifactsDir, outputDir);
+            }
+            awaitAll(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (incremental) {
+            int upToDateCount = 0;
+            for (final MarkdownRenderer renderer : renderers) {
+                upToDateCount += renderer.getUpToDateCount();
+            }
+            try {
+                for (final IncrementalState state : incrementalStates) {
+                    state.save(outputWriter);
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to write incremental build state", e);
+            }
+            getLog().info("Incremental build: " + upToDateCount + " pages up to date");
+        }
+        outputWriter.logSummary(getLog());
+        PluginCache.logStats(getLog());
+    }
+
+    private void submitDirectory(final ExecutorService executor, final List<Future<?>> futures, final File directory,
+            final String fileRegex, final String relativePath, final MarkdownRenderer renderer,
+            final File fragmentDir) {
+        for (final File file : directory.listFiles()) {
+            if (file.isDirectory() && recursive && !file.getAbsoluteFile().equals(absolute(fragmentDir))) {
+                submitDirectory(executor, futures, file, fileRegex, REL_PATH_SEGMENT + relativePath, renderer,
+                        fragmentDir);
+            } else if (file.isFile() && file.getName().matches(fileRegex)) {
+                futures.add(executor.submit(() -> renderer.render(file, relativePath)));
+            }
+        }
+    }
+
+    private void submitFrontendArtifacts(final ExecutorService executor, final List<Future<?>> futures,
+            final File directory, final File directoryOutput) {
+        for (final File file : directory.listFiles()) {
+            final File destination = new File(directoryOutput, file.getName());
+            if (file.isDirectory() && recursive) {
+                submitFrontendArtifacts(executor, futures, file, destination);
+            } else if (file.isFile()) {
+                futures.add(executor.submit(() -> {
+                    outputWriter.copy(file, destination);
+                    return null;
+                }));
+            }
+        }
+    }
+
+    private void awaitAll(final List<Future<?>> futures) throws MojoExecutionException {
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while rendering documentation", e);
+            } catch (ExecutionException e) {
+                getLog().warn("Failure rendering documentation: " + e.getCause().getMessage());
+                if (failOnError) {
+                    throw new MojoExecutionException("Failure rendering documentation", e.getCause());
+                }
+            }
+        }
+    }
+
+    private String getConfigurationFingerprint(final File moduleOutputDir, final File fragmentDir) {
+        return Hashing.sha256().newHasher()
+                .putString(headerHtml, StandardCharsets.UTF_8)
+                .putString(footerHtml, StandardCharsets.UTF_8)
+                .putBoolean(fixMarkdownLinks)
+                .putInt(splitHeadingLevel)
+                .putInt(splitThreshold)
+                .putString(moduleOutputDir.getAbsolutePath(), StandardCharsets.UTF_8)
+                .putString(String.valueOf(fragmentDir), StandardCharsets.UTF_8)
+                .putString(transformers.toString(), StandardCharsets.UTF_8)
+                .putBoolean(addTableOfContents)
+                .putBoolean(excludeH1)
+                .putInt(levelsToInclude)
+                .putString(targetSelector, StandardCharsets.UTF_8)
+                .putString(String.valueOf(title), StandardCharsets.UTF_8)
+                .putString(titleTag, StandardCharsets.UTF_8)
+                .hash().toString();
+    }
+
+    private static File absolute(final File file) {
+        return file != null ? file.getAbsoluteFile() : null;
+    }
+
+    private String getFileRegex() {
+        return fileMask.replaceAll("\\.", "\\\\.").replaceAll("[*]", ".*");
+    }
+
+    /**
+     * The include graph and content hashes of one module, kept in a directory of their own
+     */
+    private static class IncrementalState {
+
+        private final IncludeGraph includeGraph;
+        private final FileHashIndex hashIndex;
+
+        private IncrementalState(final IncludeGraph includeGraph, final FileHashIndex hashIndex) {
+            this.includeGraph = includeGraph;
+            this.hashIndex = hashIndex;
+        }
+
+        private static IncrementalState load(final File directory) throws MojoExecutionException {
+            try {
+                return new IncrementalState(IncludeGraph.load(new File(directory, "include-graph.txt")),
+                        FileHashIndex.load(new File(directory, "markdown-hashes.txt")));
+            } catch (IOException | NumberFormatException e) {
+                throw new MojoExecutionException("Failed to read incremental build state: " + directory, e);
+            }
+        }
+
+        private void save(final OutputWriter outputWriter) throws IOException {
+            includeGraph.save(outputWriter);
+            hashIndex.save(outputWriter);
+        }
+    }
+}
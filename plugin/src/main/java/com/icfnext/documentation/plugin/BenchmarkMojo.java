@@ -0,0 +1,241 @@
+package com.icfnext.documentation.plugin;
+
+import com.icfnext.documentation.plugin.benchmark.CorpusGenerator;
+import com.icfnext.documentation.plugin.benchmark.MojoRunner;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+/**
+ * Runs the full documentation pipeline (markdown-to-html, copy-frontend-artifacts, transform-html and
+ * add-table-of-contents) over generated sites of increasing size, recording wall time, peak heap and files per
+ * second for each goal. Results are compared with a stored baseline, and the build fails if throughput or heap
+ * usage regress past the configured tolerance, or if there is no baseline. The baseline is only written when
+ * {@code updateBaseline} is set.
+ */
+@Mojo(name = "benchmark", threadSafe = true)
+public class BenchmarkMojo extends AbstractMojo {
+
+    private static final long CORPUS_SEED = 20191001L;
+
+    @Parameter(defaultValue = "${project.build.directory}/benchmark")
+    private File workDir;
+
+    /**
+     * A comma separated list of site sizes, in pages
+     */
+    @Parameter(defaultValue = "1000,10000,50000")
+    private String pageCounts;
+
+    @Parameter
+    private File headerHtmlFile;
+
+    @Parameter
+    private File footerHtmlFile;
+
+    @Parameter
+    private File frontendArtifactsDir;
+
+    @Parameter
+    private List<String> transformers = new ArrayList<>();
+
+    @Parameter(defaultValue = "${project.basedir}/src/benchmark/baseline.properties")
+    private File baselineFile;
+
+    @Parameter(defaultValue = "${project.build.directory}/benchmark/results.properties")
+    private File resultsFile;
+
+    /**
+     * The fraction by which throughput may drop, or peak heap grow, before the build fails
+     */
+    @Parameter(defaultValue = "0.2")
+    private double tolerance;
+
+    /**
+     * Whether to overwrite the baseline with the results of this run
+     */
+    @Parameter(property = "documentation.benchmark.updateBaseline", defaultValue = "false")
+    private boolean updateBaseline;
+
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (!updateBaseline && !baselineFile.isFile()) {
+            throw new MojoFailureException("No benchmark baseline at " + baselineFile + ": run the benchmark with "
+                    + "-Ddocumentation.benchmark.updateBaseline=true on a quiet machine to record one");
+        }
+        if (transformers.isEmpty()) {
+            transformers.add("com.icfnext.documentation.plugin.html.IcfNextTransformer");
+        }
+        final MojoRunner runner = new MojoRunner(getLog());
+        final CorpusGenerator generator = new CorpusGenerator(CORPUS_SEED);
+        final Properties results = new Properties();
+        for (final String pageCountValue : pageCounts.split(",")) {
+            final int pageCount = Integer.parseInt(pageCountValue.trim());
+            final File corpusDir = new File(workDir, pageCount + "/docs");
+            final File htmlDir = new File(workDir, pageCount + "/html");
+            try {
+                if (!corpusDir.isDirectory()) {
+                    getLog().info("Generating " + pageCount + " page corpus");
+                    generator.generate(corpusDir, pageCount);
+                }
+                deleteRecursively(htmlDir);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to prepare benchmark corpus", e);
+            }
+
+            final Map<String, Object> markdownToHtml = new HashMap<>();
+            markdownToHtml.put("baseDir", corpusDir);
+            markdownToHtml.put("outputDir", htmlDir);
+            markdownToHtml.put("headerHtmlFile", headerHtmlFile);
+            markdownToHtml.put("footerHtmlFile", footerHtmlFile);
+            measure(results, pageCount, "markdown-to-html", pageCount,
+                    () -> runner.run(MarkdownToHtmlMojo.class, markdownToHtml));
+
+            if (frontendArtifactsDir != null) {
+                final Map<String, Object> copyFrontendArtifacts = new HashMap<>();
+                copyFrontendArtifacts.put("baseDir", frontendArtifactsDir);
+                copyFrontendArtifacts.put("outputDir", htmlDir);
+                measure(results, pageCount, "copy-frontend-artifacts", countFiles(frontendArtifactsDir),
+                        () -> runner.run(CopyFrontendArtifactsMojo.class, copyFrontendArtifacts));
+            }
+
+            final Map<String, Object> transformHtml = new HashMap<>();
+            transformHtml.put("baseDir", htmlDir);
+            transformHtml.put("transformers", transformers);
+            measure(results, pageCount, "transform-html", pageCount,
+                    () -> runner.run(HtmlTransformMojo.class, transformHtml));
+
+            final Map<String, Object> addTableOfContents = new HashMap<>();
+            addTableOfContents.put("baseDir", htmlDir);
+            addTableOfContents.put("title", "Contents");
+            addTableOfContents.put("levelsToInclude", 2);
+            measure(results, pageCount, "add-table-of-contents", pageCount,
+                    () -> runner.run(AddTableOfContentsMojo.class, addTableOfContents));
+        }
+        store(results, resultsFile);
+        if (updateBaseline) {
+            getLog().info("Writing benchmark baseline: " + baselineFile);
+            store(results, baselineFile);
+            return;
+        }
+        compareWithBaseline(results, load(baselineFile));
+    }
+
+    private void measure(final Properties results, final int pageCount, final String goal, final int fileCount,
+            final Step step) throws MojoExecutionException, MojoFailureException {
+        final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        final long start = System.nanoTime();
+        step.run();
+        final long elapsedNanos = System.nanoTime() - start;
+        long peakHeap = 0;
+        for (final MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        final double wallMillis = elapsedNanos / 1e6;
+        final double filesPerSecond = fileCount / (elapsedNanos / 1e9);
+        final double peakHeapMb = peakHeap / (1024.0 * 1024.0);
+        final String prefix = pageCount + "." + goal + ".";
+        results.setProperty(prefix + "wallMillis", String.format("%.1f", wallMillis));
+        results.setProperty(prefix + "peakHeapMb", String.format("%.1f", peakHeapMb));
+        results.setProperty(prefix + "filesPerSecond", String.format("%.1f", filesPerSecond));
+        getLog().info(String.format("%6d pages  %-24s %10.1f ms %10.1f MB %10.1f files/s",
+                pageCount, goal, wallMillis, peakHeapMb, filesPerSecond));
+    }
+
+    private void compareWithBaseline(final Properties results, final Properties baseline)
+            throws MojoFailureException {
+        final List<String> regressions = new ArrayList<>();
+        for (final String key : new TreeSet<>(results.stringPropertyNames())) {
+            final String baselineValue = baseline.getProperty(key);
+            if (baselineValue == null) {
+                continue;
+            }
+            final double expected = Double.parseDouble(baselineValue);
+            final double actual = Double.parseDouble(results.getProperty(key));
+            if (key.endsWith(".filesPerSecond") && actual < expected * (1 - tolerance)) {
+                regressions.add(key + ": " + actual + " (baseline " + expected + ")");
+            } else if (key.endsWith(".peakHeapMb") && actual > expected * (1 + tolerance)) {
+                regressions.add(key + ": " + actual + " (baseline " + expected + ")");
+            }
+        }
+        if (!regressions.isEmpty()) {
+            for (final String regression : regressions) {
+                getLog().error("Benchmark regression: " + regression);
+            }
+            throw new MojoFailureException(regressions.size() + " benchmark result(s) regressed past the baseline");
+        }
+        getLog().info("Benchmark results are within " + (int) (tolerance * 100) + "% of the baseline");
+    }
+
+    private static int countFiles(final File directory) throws MojoExecutionException {
+        try (final Stream<Path> paths = java.nio.file.Files.walk(directory.toPath())) {
+            return (int) paths.filter(java.nio.file.Files::isRegularFile).count();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to list " + directory, e);
+        }
+    }
+
+    private static void deleteRecursively(final File directory) throws IOException {
+        if (!directory.exists()) {
+            return;
+        }
+        try (final Stream<Path> paths = java.nio.file.Files.walk(directory.toPath())) {
+            final Path[] sorted = paths.sorted(Comparator.reverseOrder()).toArray(Path[]::new);
+            for (final Path path : sorted) {
+                java.nio.file.Files.delete(path);
+            }
+        }
+    }
+
+    private static Properties load(final File file) throws MojoExecutionException {
+        final Properties properties = new Properties();
+        try (final InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to read " + file, e);
+        }
+        return properties;
+    }
+
+    private static void store(final Properties properties, final File file) throws MojoExecutionException {
+        try {
+            com.google.common.io.Files.createParentDirs(file);
+            try (final OutputStream out = new FileOutputStream(file)) {
+                properties.store(out, "documentation-maven-plugin benchmark results");
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write " + file, e);
+        }
+    }
+
+    private interface Step {
+        void run() throws MojoExecutionException, MojoFailureException;
+    }
+}
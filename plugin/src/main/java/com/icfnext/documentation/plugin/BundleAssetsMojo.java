@@ -0,0 +1,366 @@
+package com.icfnext.documentation.plugin;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.icfnext.documentation.plugin.assets.AssetBundler;
+import com.icfnext.documentation.plugin.html.HtmlToken;
+import com.icfnext.documentation.plugin.html.HtmlTokenizer;
+import com.icfnext.documentation.plugin.io.FileHashIndex;
+import com.icfnext.documentation.plugin.io.InputReader;
+import com.icfnext.documentation.plugin.io.OutputWriter;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Replaces the stylesheet and script references in the header and footer templates with a single stylesheet bundle
+ * and a single deferred script bundle, built from the frontend artifacts already copied to the output directory.
+ * The script bundle is not deferred if a script that is not bundled, such as an inline script, follows a bundled
+ * script, since it may depend on the bundled code having run.
+ * The rewritten templates are written separately, to be used as the {@code headerHtmlFile} and
+ * {@code footerHtmlFile} of {@code markdown-to-html}.
+ * <p>
+ * Each bundle starts with a version derived from the content hashes of its sources, which are kept in a
+ * {@link FileHashIndex} between builds; a bundle is only rebuilt when its version changes.
+ */
+@Mojo(name = "bundle-assets", threadSafe = true)
+public class BundleAssetsMojo extends AbstractMojo {
+
+    private static final String CHARSET = "UTF-8";
+    private static final String SITE_ROOT = "${site-root}";
+    private static final int VERSION_LENGTH = 16;
+    private static final List<String> SCRIPT_TYPES = Arrays.asList("", "text/javascript", "application/javascript");
+
+    private final OutputWriter outputWriter = new OutputWriter(Charset.forName(CHARSET));
+
+    /**
+     * The directory the frontend artifacts were copied to, where the bundles are written
+     */
+    @Parameter(defaultValue = "${project.outputDirectory}")
+    private File outputDir;
+
+    @Parameter(defaultValue = "true")
+    private boolean failOnError;
+
+    @Parameter
+    private File headerHtmlFile;
+
+    @Parameter
+    private File footerHtmlFile;
+
+    @Parameter(defaultValue = "${project.build.directory}/documentation/header.html")
+    private File headerOutputFile;
+
+    @Parameter(defaultValue = "${project.build.directory}/documentation/footer.html")
+    private File footerOutputFile;
+
+    /**
+     * The directory, relative to outputDir, in which the bundles are written
+     */
+    @Parameter(defaultValue = "bundles")
+    private String bundleDir;
+
+    /**
+     * The file name of the bundles, without the .css or .js extension
+     */
+    @Parameter(defaultValue = "bundle")
+    private String bundleName;
+
+    @Parameter(defaultValue = "${project.build.directory}/documentation/asset-hashes.txt")
+    private File hashIndexFile;
+
+    public void execute() throws MojoExecutionException {
+        if (!outputDir.exists()) {
+            throw new MojoExecutionException("Parameter outputDir doesn't exist: " + outputDir.getAbsolutePath());
+        } else if (!outputDir.isDirectory()) {
+            throw new MojoExecutionException("Parameter outputDir is not a directory: " + outputDir.getAbsolutePath());
+        } else if (headerHtmlFile == null && footerHtmlFile == null) {
+            throw new MojoExecutionException("At least one of headerHtmlFile and footerHtmlFile must be set");
+        }
+        final List<HtmlToken> header = tokenize(headerHtmlFile);
+        final List<HtmlToken> footer = tokenize(footerHtmlFile);
+        final Set<String> stylesheets = new LinkedHashSet<>();
+        final Set<String> scripts = new LinkedHashSet<>();
+        collectReferences(header, headerHtmlFile, stylesheets, scripts);
+        collectReferences(footer, footerHtmlFile, stylesheets, scripts);
+
+        final FileHashIndex hashIndex;
+        try {
+            hashIndex = FileHashIndex.load(hashIndexFile);
+        } catch (IOException | NumberFormatException e) {
+            throw new MojoExecutionException("Failed to read hash index: " + hashIndexFile, e);
+        }
+        final String cssPath = bundleDir + "/" + bundleName + ".css";
+        final String jsPath = bundleDir + "/" + bundleName + ".js";
+        final String cssVersion = buildBundle(stylesheets, cssPath, hashIndex,
+                () -> AssetBundler.bundleStylesheets(outputDir, new ArrayList<>(stylesheets), cssPath));
+        final String jsVersion = buildBundle(scripts, jsPath, hashIndex,
+                () -> AssetBundler.bundleScripts(outputDir, new ArrayList<>(scripts)));
+
+        final List<String> dependentScripts = new ArrayList<>();
+        final boolean scriptBundled = findDependentScripts(header, headerHtmlFile, scripts, false, dependentScripts);
+        findDependentScripts(footer, footerHtmlFile, scripts, scriptBundled, dependentScripts);
+        if (!dependentScripts.isEmpty()) {
+            getLog().warn("The script bundle is not deferred, since scripts that are not bundled follow a bundled"
+                    + " script: " + String.join(", ", dependentScripts));
+        }
+        final Rewriter rewriter = new Rewriter(stylesheets, SITE_ROOT + cssPath + "?v=" + cssVersion, scripts,
+                SITE_ROOT + jsPath + "?v=" + jsVersion, dependentScripts.isEmpty());
+        try {
+            if (headerHtmlFile != null) {
+                outputWriter.write(headerOutputFile, rewriter.rewrite(header));
+            }
+            if (footerHtmlFile != null) {
+                outputWriter.write(footerOutputFile, rewriter.rewrite(footer));
+            }
+            hashIndex.save(outputWriter);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write bundled templates", e);
+        }
+        outputWriter.logSummary(getLog());
+    }
+
+    private List<HtmlToken> tokenize(final File template) throws MojoExecutionException {
+        final List<HtmlToken> tokens = new ArrayList<>();
+        if (template != null) {
+            try {
+                final HtmlTokenizer tokenizer = new HtmlTokenizer(new StringReader(InputReader.read(template)));
+                for (HtmlToken token = tokenizer.next(); token != null; token = tokenizer.next()) {
+                    tokens.add(token);
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to read template: " + template, e);
+            }
+        }
+        return tokens;
+    }
+
+    private void collectReferences(final List<HtmlToken> tokens, final File template, final Set<String> stylesheets,
+            final Set<String> scripts) throws MojoExecutionException {
+        for (final HtmlToken token : tokens) {
+            if (token instanceof HtmlToken.StartTag) {
+                final HtmlToken.StartTag tag = (HtmlToken.StartTag) token;
+                final String stylesheet = getStylesheetPath(tag);
+                final String script = getScriptPath(tag);
+                final String path = stylesheet != null ? stylesheet : script;
+                if (path == null) {
+                    continue;
+                }
+                if (!new File(outputDir, path).isFile()) {
+                    getLog().warn("Asset " + path + " referenced from " + template.getName()
+                            + " not found in outputDir; copy-frontend-artifacts should run first");
+                    if (failOnError) {
+                        throw new MojoExecutionException("Asset not found: " + new File(outputDir, path));
+                    }
+                } else if (stylesheet != null) {
+                    stylesheets.add(stylesheet);
+                } else {
+                    scripts.add(script);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the scripts that run in order after a bundled script, and so could depend on it: inline scripts, and
+     * classic scripts that are not bundled and not deferred. Deferring the bundle would run it after them.
+     * @param scriptBundled whether a bundled script was already seen in an earlier template
+     * @param dependentScripts receives a description of each script found
+     * @return whether a bundled script has been seen, in this or an earlier template
+     */
+    private static boolean findDependentScripts(final List<HtmlToken> tokens, final File template,
+            final Set<String> scripts, final boolean scriptBundled, final List<String> dependentScripts) {
+        boolean bundled = scriptBundled;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (!(tokens.get(i) instanceof HtmlToken.StartTag)) {
+                continue;
+            }
+            final HtmlToken.StartTag tag = (HtmlToken.StartTag) tokens.get(i);
+            final String script = getScriptPath(tag);
+            if (script != null && scripts.contains(script)) {
+                bundled = true;
+            } else if (bundled && "script".equals(tag.getName()) && !tag.hasAttribute("async")
+                    && isClassicScript(tag)) {
+                if (!tag.hasAttribute("src")) {
+                    final HtmlToken content = i + 1 < tokens.size() ? tokens.get(i + 1) : null;
+                    final String code = content instanceof HtmlToken.Text
+                            ? ((HtmlToken.Text) content).getText().trim().replaceAll("\\s+", " ") : "";
+                    dependentScripts.add("inline script in " + template.getName() + " ("
+                            + (code.length() > 40 ? code.substring(0, 40) + "..." : code) + ")");
+                } else if (!tag.hasAttribute("defer")) {
+                    dependentScripts.add(tag.getAttribute("src") + " in " + template.getName());
+                }
+            }
+        }
+        return bundled;
+    }
+
+    /**
+     * @return the version of the bundle, or null if there is nothing to bundle
+     */
+    private String buildBundle(final Set<String> paths, final String bundlePath, final FileHashIndex hashIndex,
+            final Callable<String> content) throws MojoExecutionException {
+        if (paths.isEmpty()) {
+            return null;
+        }
+        final File bundleFile = new File(outputDir, bundlePath);
+        final Charset charset = Charset.forName(CHARSET);
+        try {
+            final Hasher hasher = Hashing.sha256().newHasher();
+            for (final String path : paths) {
+                hasher.putString(path, charset).putChar('\t')
+                        .putString(hashIndex.hash(path, new File(outputDir, path)), charset)
+                        .putChar('\n');
+            }
+            final String version = hasher.hash().toString().substring(0, VERSION_LENGTH);
+            final String firstLine = "/* bundle " + version + " */";
+            if (bundleFile.isFile() && firstLine.equals(Files.asCharSource(bundleFile, charset).readFirstLine())) {
+                getLog().info(bundlePath + " is up to date (" + paths.size() + " files)");
+            } else {
+                outputWriter.write(bundleFile, firstLine + "\n" + content.call());
+                getLog().info("Bundled " + paths.size() + " files into " + bundlePath);
+            }
+            return version;
+        } catch (Exception e) {
+            throw new MojoExecutionException("Failed to build bundle: " + bundleFile, e);
+        }
+    }
+
+    private static String getStylesheetPath(final HtmlToken.StartTag tag) {
+        if (!"link".equals(tag.getName())) {
+            return null;
+        }
+        final String rel = tag.getAttribute("rel");
+        final String media = tag.getAttribute("media");
+        if (rel == null || !Arrays.asList(rel.toLowerCase(Locale.ROOT).split("\\s+")).contains("stylesheet")
+                || media != null && !media.trim().equalsIgnoreCase("all")) {
+            // stylesheets for other media would apply everywhere once merged
+            return null;
+        }
+        return getAssetPath(tag.getAttribute("href"));
+    }
+
+    private static String getScriptPath(final HtmlToken.StartTag tag) {
+        if (!"script".equals(tag.getName()) || tag.hasAttribute("async") || !isClassicScript(tag)) {
+            return null;
+        }
+        return getAssetPath(tag.getAttribute("src"));
+    }
+
+    /**
+     * @return false for modules and data blocks, such as JSON or templates
+     */
+    private static boolean isClassicScript(final HtmlToken.StartTag tag) {
+        final String type = tag.getAttribute("type");
+        return type == null || SCRIPT_TYPES.contains(type.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return the path of a site-relative reference, relative to the site root, or null for other references
+     */
+    private static String getAssetPath(final String url) {
+        if (url == null || url.isEmpty()) {
+            return null;
+        }
+        String path = url.startsWith(SITE_ROOT) ? url.substring(SITE_ROOT.length()) : url;
+        if (path.startsWith("/") || path.matches("^[a-zA-Z][a-zA-Z0-9+.-]*:.*") || path.contains("${")) {
+            return null;
+        }
+        final int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        final int fragment = path.indexOf('#');
+        return fragment >= 0 ? path.substring(0, fragment) : path;
+    }
+
+    /**
+     * Replaces the first bundled reference of each kind with a reference to the bundle, and drops the others
+     */
+    private static class Rewriter {
+
+        private final Set<String> stylesheets;
+        private final String stylesheetBundle;
+        private final Set<String> scripts;
+        private final String scriptBundle;
+        private final boolean deferScripts;
+        private boolean stylesheetBundleAdded;
+        private boolean scriptBundleAdded;
+
+        private Rewriter(final Set<String> stylesheets, final String stylesheetBundle, final Set<String> scripts,
+                final String scriptBundle, final boolean deferScripts) {
+            this.stylesheets = stylesheets;
+            this.stylesheetBundle = stylesheetBundle;
+            this.scripts = scripts;
+            this.scriptBundle = scriptBundle;
+            this.deferScripts = deferScripts;
+        }
+
+        private String rewrite(final List<HtmlToken> tokens) {
+            final List<HtmlToken> out = new ArrayList<>();
+            boolean inDroppedScript = false;
+            for (final HtmlToken token : tokens) {
+                if (inDroppedScript) {
+                    inDroppedScript = !(token instanceof HtmlToken.EndTag
+                            && "script".equals(((HtmlToken.EndTag) token).getName()));
+                    continue;
+                }
+                if (token instanceof HtmlToken.StartTag) {
+                    final HtmlToken.StartTag tag = (HtmlToken.StartTag) token;
+                    final String stylesheet = getStylesheetPath(tag);
+                    final String script = getScriptPath(tag);
+                    if (stylesheet != null && stylesheets.contains(stylesheet)) {
+                        if (stylesheetBundleAdded) {
+                            removeTrailingWhitespace(out);
+                        } else {
+                            out.add(new HtmlToken.StartTag("link").setAttribute("rel", "stylesheet")
+                                    .setAttribute("href", stylesheetBundle));
+                            stylesheetBundleAdded = true;
+                        }
+                        continue;
+                    } else if (script != null && scripts.contains(script)) {
+                        if (scriptBundleAdded) {
+                            removeTrailingWhitespace(out);
+                        } else {
+                            final HtmlToken.StartTag bundle =
+                                    new HtmlToken.StartTag("script").setAttribute("src", scriptBundle);
+                            out.add(deferScripts ? bundle.setAttribute("defer", "") : bundle);
+                            out.add(new HtmlToken.EndTag("script"));
+                            scriptBundleAdded = true;
+                        }
+                        inDroppedScript = !tag.isSelfClosing();
+                        continue;
+                    }
+                }
+                out.add(token);
+            }
+            final StringBuilder html = new StringBuilder();
+            for (final HtmlToken token : out) {
+                html.append(token);
+            }
+            return html.toString();
+        }
+
+        private static void removeTrailingWhitespace(final List<HtmlToken> tokens) {
+            final int last = tokens.size() - 1;
+            if (last >= 0 && tokens.get(last) instanceof HtmlToken.Text
+                    && ((HtmlToken.Text) tokens.get(last)).isWhitespace()) {
+                tokens.remove(last);
+            }
+        }
+    }
+}
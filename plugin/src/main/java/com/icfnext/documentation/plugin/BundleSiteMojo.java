@@ -0,0 +1,93 @@
+package com.icfnext.documentation.plugin;
+
+import com.icfnext.documentation.plugin.bundle.SiteBundle;
+import com.icfnext.documentation.plugin.bundle.SiteBundleBenchmark;
+import com.icfnext.documentation.plugin.bundle.SiteBundleWriter;
+import com.icfnext.documentation.plugin.io.OutputWriter;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Packages the generated site into a single indexed bundle file, which can be memory-mapped and served without
+ * extracting it. See {@link SiteBundle} for the reader API.
+ */
+@Mojo(name = "bundle-site", threadSafe = true)
+public class BundleSiteMojo extends AbstractMojo {
+
+    private final OutputWriter outputWriter = new OutputWriter(StandardCharsets.UTF_8);
+
+    @Parameter(required = true)
+    private File baseDir;
+
+    @Parameter(defaultValue = "true")
+    private boolean recursive;
+
+    @Parameter(defaultValue = "*")
+    private String fileMask;
+
+    @Parameter(defaultValue = "${project.build.directory}/${project.build.finalName}-site.bundle")
+    private File bundleFile;
+
+    @Parameter(defaultValue = "false")
+    private boolean precompress;
+
+    @Parameter(defaultValue = "false")
+    private boolean benchmark;
+
+    @Parameter(defaultValue = "100000")
+    private int benchmarkIterations;
+
+    public void execute() throws MojoExecutionException {
+        if (!baseDir.exists()) {
+            throw new MojoExecutionException("Parameter baseDir doesn't exist: " + baseDir.getAbsolutePath());
+        } else if (!baseDir.isDirectory()) {
+            throw new MojoExecutionException("Parameter baseDir is not a directory: " + baseDir.getAbsolutePath());
+        }
+        final SiteBundleWriter writer = new SiteBundleWriter(precompress);
+        handleDirectory(baseDir, getFileRegex(), "", writer);
+        try {
+            final File tempFile = outputWriter.createTempFile(bundleFile);
+            try {
+                writer.write(tempFile);
+            } catch (IOException e) {
+                java.nio.file.Files.deleteIfExists(tempFile.toPath());
+                throw e;
+            }
+            if (outputWriter.commit(tempFile, bundleFile)) {
+                getLog().info("Bundled " + writer.size() + " file(s) into " + bundleFile);
+            } else {
+                getLog().info("Site bundle is up to date: " + bundleFile);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failure writing site bundle", e);
+        }
+        if (benchmark) {
+            try (final SiteBundle bundle = SiteBundle.open(bundleFile)) {
+                new SiteBundleBenchmark(getLog()).run(bundle, baseDir, benchmarkIterations);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failure benchmarking site bundle", e);
+            }
+        }
+    }
+
+    private void handleDirectory(final File directory, final String fileRegex, final String relativePath,
+            final SiteBundleWriter writer) {
+        for (final File file : directory.listFiles()) {
+            if (file.isDirectory() && recursive) {
+                handleDirectory(file, fileRegex, relativePath + file.getName() + "/", writer);
+            } else if (file.isFile() && file.getName().matches(fileRegex)) {
+                writer.add(relativePath + file.getName(), file);
+            }
+        }
+    }
+
+    private String getFileRegex() {
+        return fileMask.replaceAll("\\.", "\\\\.").replaceAll("[*]", ".*");
+    }
+}
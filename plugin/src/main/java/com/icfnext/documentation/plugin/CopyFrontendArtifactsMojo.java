@@ -1,16 +1,18 @@
 package com.icfnext.documentation.plugin;
 
-import com.google.common.io.Files;
-import org.apache.maven.plugin.AbstractMojo;
+import com.icfnext.documentation.plugin.io.OutputWriter;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
-@Mojo(name = "copy-frontend-artifacts")
-public class CopyFrontendArtifactsMojo extends AbstractMojo {
+@Mojo(name = "copy-frontend-artifacts", threadSafe = true)
+public class CopyFrontendArtifactsMojo extends AbstractShardedMojo {
+
+    private final OutputWriter outputWriter = new OutputWriter(StandardCharsets.UTF_8);
 
     @Parameter(required = true)
     private File baseDir;
@@ -35,7 +37,9 @@ public class CopyFrontendArtifactsMojo extends AbstractMojo {
             throw new MojoExecutionException("Parameter baseDir is not a directory: " + baseDir.getAbsolutePath());
         }
         final String fileRegex = getFileRegex();
+        selectShard(baseDir, fileRegex, recursive, null);
         handleDirectory(baseDir, fileRegex);
+        outputWriter.logSummary(getLog());
     }
 
     private void handleDirectory(final File directory, final String fileRegex)
@@ -43,7 +47,7 @@ public class CopyFrontendArtifactsMojo extends AbstractMojo {
         for (final File file : directory.listFiles()) {
             if (file.isDirectory() && recursive) {
                 handleDirectory(file, fileRegex);
-            } else if (file.isFile() && file.getName().matches(fileRegex)) {
+            } else if (file.isFile() && file.getName().matches(fileRegex) && isInShard(file)) {
                 try {
                     copyFile(file);
                 } catch (IOException e) {
@@ -62,8 +66,7 @@ public class CopyFrontendArtifactsMojo extends AbstractMojo {
         final String outputDir = this.outputDir.getAbsolutePath();
         final String destinationPath = outputDir + relPath;
         final File destination = new File(destinationPath);
-        Files.createParentDirs(destination);
-        Files.copy(source, destination);
+        outputWriter.copy(source, destination);
     }
 
     private String getFileRegex() {
@@ -0,0 +1,138 @@
+package com.icfnext.documentation.plugin;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Resources;
+import com.icfnext.documentation.plugin.cache.PluginCache;
+import com.icfnext.documentation.plugin.io.FileHashIndex;
+import com.icfnext.documentation.plugin.io.OutputWriter;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Generates a precache manifest, listing every page and asset of the site with its content hash, and a service
+ * worker that serves the site from a cache and only downloads entries whose hash has changed. Each manifest version
+ * is installed into its own cache, which replaces the previous one when the new worker activates. Hashes are kept in a
+ * {@link FileHashIndex} between builds, so only files that changed are rehashed.
+ */
+@Mojo(name = "generate-service-worker", threadSafe = true)
+public class GenerateServiceWorkerMojo extends AbstractMojo {
+
+    private static final String CHARSET = "UTF-8";
+    private static final String TEMPLATE = "service-worker.js";
+    private static final int VERSION_LENGTH = 16;
+
+    private final OutputWriter outputWriter = new OutputWriter(Charset.forName(CHARSET));
+
+    @Parameter(required = true)
+    private File baseDir;
+
+    @Parameter(defaultValue = "true")
+    private boolean failOnError;
+
+    @Parameter(defaultValue = "true")
+    private boolean recursive;
+
+    @Parameter(defaultValue = "*")
+    private String fileMask;
+
+    @Parameter(defaultValue = "precache-manifest.json")
+    private String manifestFileName;
+
+    @Parameter(defaultValue = "sw.js")
+    private String serviceWorkerFileName;
+
+    @Parameter(defaultValue = "documentation")
+    private String cacheName;
+
+    @Parameter(defaultValue = "${project.build.directory}/documentation/file-hashes.txt")
+    private File hashIndexFile;
+
+    public void execute() throws MojoExecutionException {
+        if (!baseDir.exists()) {
+            throw new MojoExecutionException("Parameter baseDir doesn't exist: " + baseDir.getAbsolutePath());
+        } else if (!baseDir.isDirectory()) {
+            throw new MojoExecutionException("Parameter baseDir is not a directory: " + baseDir.getAbsolutePath());
+        }
+        final FileHashIndex hashIndex;
+        try {
+            hashIndex = FileHashIndex.load(hashIndexFile);
+        } catch (IOException | NumberFormatException e) {
+            throw new MojoExecutionException("Failed to read hash index: " + hashIndexFile, e);
+        }
+        final Map<String, String> entries = new TreeMap<>();
+        handleDirectory(baseDir, getFileRegex(), "", hashIndex, entries);
+
+        final String manifest = toJson(entries);
+        final String version = Hashing.sha256().hashString(manifest, Charset.forName(CHARSET)).toString()
+                .substring(0, VERSION_LENGTH);
+        final String versionedManifest = "{\"version\":\"" + version + "\"," + manifest.substring(1);
+        try {
+            final String template = PluginCache.get(TEMPLATE, String.class,
+                    () -> Resources.toString(Resources.getResource(getClass(), "/" + TEMPLATE),
+                            Charset.forName(CHARSET)));
+            final String serviceWorker = template
+                    .replace("${manifest}", versionedManifest)
+                    .replace("${cacheName}", cacheName);
+            outputWriter.write(new File(baseDir, manifestFileName), versionedManifest);
+            outputWriter.write(new File(baseDir, serviceWorkerFileName), serviceWorker);
+            hashIndex.save(outputWriter);
+        } catch (IOException | IllegalStateException e) {
+            throw new MojoExecutionException("Failed to write service worker", e);
+        }
+        getLog().info("Precache manifest version " + version + ": " + entries.size() + " entries, "
+                + hashIndex.getHashedCount() + " hashed, " + hashIndex.getReusedCount() + " unchanged");
+    }
+
+    private void handleDirectory(final File directory, final String fileRegex, final String relativePath,
+            final FileHashIndex hashIndex, final Map<String, String> entries) throws MojoExecutionException {
+        for (final File file : directory.listFiles()) {
+            final String path = relativePath + file.getName();
+            if (file.isDirectory() && recursive) {
+                handleDirectory(file, fileRegex, path + "/", hashIndex, entries);
+            } else if (file.isFile() && file.getName().matches(fileRegex) && !isGenerated(path)) {
+                try {
+                    entries.put(path, hashIndex.hash(path, file));
+                } catch (IOException e) {
+                    getLog().warn("Failed to hash " + file + ": " + e.getMessage());
+                    if (failOnError) {
+                        throw new MojoExecutionException("Failure hashing " + file, e);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isGenerated(final String path) {
+        return path.equals(manifestFileName) || path.equals(serviceWorkerFileName);
+    }
+
+    private static String toJson(final Map<String, String> entries) {
+        final StringBuilder out = new StringBuilder("{\"entries\":[");
+        boolean first = true;
+        for (final Map.Entry<String, String> entry : entries.entrySet()) {
+            if (!first) {
+                out.append(',');
+            }
+            first = false;
+            out.append("\n{\"url\":\"").append(escapeJson(entry.getKey()))
+                    .append("\",\"hash\":\"").append(entry.getValue()).append("\"}");
+        }
+        return out.append("\n]}").toString();
+    }
+
+    private static String escapeJson(final String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private String getFileRegex() {
+        return fileMask.replaceAll("\\.", "\\\\.").replaceAll("[*]", ".*");
+    }
+}
@@ -1,8 +1,16 @@
 package com.icfnext.documentation.plugin;
 
 import com.google.common.io.Files;
-import com.icfnext.documentation.plugin.html.HtmlTransformer;
-import org.apache.maven.plugin.AbstractMojo;
+import com.icfnext.documentation.plugin.cache.PluginCache;
+import com.icfnext.documentation.plugin.html.ConditionalTransformer;
+import com.icfnext.documentation.plugin.html.HtmlTransformerChain;
+import com.icfnext.documentation.plugin.html.HtmlTransformerFactory;
+import com.icfnext.documentation.plugin.html.ProcessingMarker;
+import com.icfnext.documentation.plugin.html.ResourceHints;
+import com.icfnext.documentation.plugin.html.TransformerCondition;
+import com.icfnext.documentation.plugin.io.FileShards;
+import com.icfnext.documentation.plugin.io.InputReader;
+import com.icfnext.documentation.plugin.io.OutputWriter;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -11,14 +19,28 @@ import org.jsoup.nodes.Document;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.Set;
+import java.util.TreeSet;
 
-@Mojo(name = "transform-html")
-public class HtmlTransformMojo extends AbstractMojo {
+@Mojo(name = "transform-html", threadSafe = true)
+public class HtmlTransformMojo extends AbstractShardedMojo {
 
     private static final String CHARSET = "UTF-8";
+    private static final String LINK = "link";
+
+    private final OutputWriter outputWriter = new OutputWriter(Charset.forName(CHARSET));
 
     @Parameter(required = true)
     private File baseDir;
@@ -34,7 +56,32 @@ public class HtmlTransformMojo extends AbstractMojo {
 
     @Parameter(required = true)
     private List<String> transformers = new ArrayList<>();
-    private List<HtmlTransformer> transformerInstances = new ArrayList<>();
+    private HtmlTransformerChain transformerChain = new HtmlTransformerChain();
+    private final List<TransformerCondition> conditions = new ArrayList<>();
+    private boolean conditional;
+    private int skippedPages;
+
+    /**
+     * Whether to add prefetch hints for likely next pages, and preload hints for head resources
+     */
+    @Parameter(defaultValue = "false")
+    private boolean resourceHints;
+
+    @Parameter(defaultValue = "3")
+    private int maxPrefetch;
+
+    /**
+     * Where the site link graph is kept between builds, for ranking prefetch candidates. In a sharded build, the
+     * shard is added to the file name.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/documentation/link-graph.txt")
+    private File linkGraphFile;
+    private ResourceHints hints;
+    private Map<String, Set<String>> previousLinks;
+    private ProcessingMarker hintsMarker;
+
+    private ProcessingMarker marker;
+    private int upToDateCount;
 
     public void execute() throws MojoExecutionException {
         if (!baseDir.exists()) {
@@ -44,29 +91,58 @@ public class HtmlTransformMojo extends AbstractMojo {
         }
         for (final String transformer : transformers) {
             try {
-                final Class<?> transformerClass = getClass().getClassLoader().loadClass(transformer);
-                if (transformerClass.isAssignableFrom(HtmlTransformer.class)) {
-                    getLog().warn("Transformer does not implement HtmlTransformer: " + transformer);
-                    if (failOnError) {
-                        throw new MojoExecutionException("Invalid transformer class: " + transformer);
-                    }
-                }
-                final Object transformerInstance = transformerClass.newInstance();
-                transformerInstances.add((HtmlTransformer) transformerInstance);
+                final Object instance = HtmlTransformerFactory.getShared(transformer, getClass().getClassLoader());
+                transformerChain.add(instance);
+                conditions.add(new TransformerCondition(instance));
+                conditional |= instance instanceof ConditionalTransformer;
             } catch (ClassNotFoundException e) {
                 getLog().warn("Transformer not found: " + transformer);
                 if (failOnError) {
                     throw new MojoExecutionException("Failed to load transformer class: " + transformer, e);
                 }
-            } catch (IllegalAccessException | InstantiationException e) {
+            } catch (IllegalArgumentException e) {
+                getLog().warn("Transformer does not implement HtmlTransformer: " + transformer);
+                if (failOnError) {
+                    throw new MojoExecutionException("Invalid transformer class: " + transformer, e);
+                }
+            } catch (ReflectiveOperationException e) {
                 getLog().warn("Transformer instantiation failed: " + transformer);
                 if (failOnError) {
                     throw new MojoExecutionException("Failed to instantiate transformer: " + transformer, e);
                 }
             }
         }
+        marker = new ProcessingMarker("transform-html", transformers);
         final String fileRegex = getFileRegex();
+        selectShard(baseDir, fileRegex, recursive, null);
+        final String shardConflict = FileShards.checkPageShard(getPluginContext(), "transform-html", shardCount);
+        if (shardConflict != null) {
+            getLog().warn(shardConflict);
+            if (failOnError) {
+                throw new MojoExecutionException("Pages are sharded twice: " + shardConflict);
+            }
+        }
+        if (resourceHints) {
+            previousLinks = readLinkGraph();
+            final Map<String, Integer> inboundLinks = ResourceHints.countInboundLinks(previousLinks);
+            hints = new ResourceHints(maxPrefetch, inboundLinks, baseDir);
+            hintsMarker = new ProcessingMarker("transform-html:resource-hints", maxPrefetch,
+                    new TreeMap<>(inboundLinks));
+        } else if (transformerChain.isStreaming()) {
+            getLog().debug("All transformers are streaming; pages will not be parsed into a document tree");
+        }
         handleDirectory(baseDir, fileRegex);
+        if (hints != null) {
+            writeLinkGraph(hints.getLinks());
+        }
+        if (conditional) {
+            logConditions();
+        }
+        if (upToDateCount > 0) {
+            getLog().info(upToDateCount + " page(s) were already transformed");
+        }
+        outputWriter.logSummary(getLog());
+        PluginCache.logStats(getLog());
     }
 
     private void handleDirectory(final File directory, final String fileRegex)
@@ -74,7 +150,7 @@ public class HtmlTransformMojo extends AbstractMojo {
         for (final File file : directory.listFiles()) {
             if (file.isDirectory() && recursive) {
                 handleDirectory(file, fileRegex);
-            } else if (file.isFile() && file.getName().matches(fileRegex)) {
+            } else if (file.isFile() && file.getName().matches(fileRegex) && isInShard(file)) {
                 try {
                     transformFile(file);
                 } catch (IOException e) {
@@ -86,15 +162,181 @@ public class HtmlTransformMojo extends AbstractMojo {
         }
     }
 
-    private void transformFile(final File file) throws IOException {
-        final Charset charset = Charset.forName(CHARSET);
-        final String html = Files.asCharSource(file, charset).read();
-        final Document document = Jsoup.parse(html);
-        for (final HtmlTransformer transformerInstance : transformerInstances) {
-            transformerInstance.transform(document);
+    private void transformFile(final File file) throws IOException, MojoExecutionException {
+        final String pagePath = baseDir.toPath().relativize(file.toPath()).toString().replace('\\', '/');
+        final ProcessingMarker.Status status = marker.check(file);
+        if (status == ProcessingMarker.Status.OUTDATED) {
+            getLog().warn(pagePath + " was transformed with different transformers and is left unchanged; delete it, or"
+                    + " run mvn clean, to generate it again");
+            if (failOnError) {
+                throw new MojoExecutionException("Page was processed with a different configuration: " + file);
+            }
+            return;
+        } else if (status == ProcessingMarker.Status.UP_TO_DATE) {
+            upToDateCount++;
+            if (hints != null && hintsMarker.check(file) == ProcessingMarker.Status.UP_TO_DATE) {
+                hints.keep(pagePath, previousLinks.getOrDefault(pagePath, Collections.<String>emptySet()));
+            } else if (hints != null) {
+                // hints depend on the link graph of the whole site, so they are refreshed when it has changed
+                final Document document = Jsoup.parse(InputReader.readForRewrite(file));
+                hints.apply(document, pagePath);
+                hintsMarker.apply(document);
+                outputWriter.write(file, document.outerHtml());
+            }
+            return;
         }
+        final HtmlTransformerChain chain;
+        String html = null;
+        Document document = null;
+        if (conditional) {
+            final List<TransformerCondition> applicable = new ArrayList<>();
+            for (final TransformerCondition condition : conditions) {
+                if (condition.matchesPath(pagePath)) {
+                    applicable.add(condition);
+                } else {
+                    condition.recordSkip();
+                }
+            }
+            if (hasMarkers(applicable)) {
+                html = InputReader.readForRewrite(file, content -> {
+                    for (final Iterator<TransformerCondition> i = applicable.iterator(); i.hasNext(); ) {
+                        final TransformerCondition condition = i.next();
+                        if (!condition.matchesContent(content)) {
+                            condition.recordSkip();
+                            i.remove();
+                        }
+                    }
+                    return !applicable.isEmpty() || hints != null;
+                });
+            }
+            if (hasRequiredSelector(applicable)) {
+                if (html == null) {
+                    html = InputReader.readForRewrite(file);
+                }
+                document = Jsoup.parse(html);
+                for (final Iterator<TransformerCondition> i = applicable.iterator(); i.hasNext(); ) {
+                    final TransformerCondition condition = i.next();
+                    if (!condition.matchesDocument(document)) {
+                        condition.recordSkip();
+                        i.remove();
+                    }
+                }
+            }
+            if (applicable.isEmpty() && hints == null) {
+                getLog().debug("No applicable transformers, skipping " + pagePath);
+                skippedPages++;
+                return;
+            }
+            chain = new HtmlTransformerChain();
+            for (final TransformerCondition condition : applicable) {
+                condition.recordHit();
+                chain.add(condition.getTransformer());
+            }
+        } else {
+            chain = transformerChain;
+        }
+
+        if (document == null && hints == null && chain.isStreaming()) {
+            final Charset charset = outputWriter.getCharset();
+            final File tempFile = outputWriter.createTempFile(file);
+            try (final Reader in = html != null ? new StringReader(html) : Files.newReader(file, charset);
+                 final Writer out = Files.newWriter(tempFile, charset)) {
+                chain.with(marker.asStreamingTransformer()).stream(in, out);
+            } catch (IOException e) {
+                java.nio.file.Files.deleteIfExists(tempFile.toPath());
+                throw e;
+            }
+            outputWriter.commit(tempFile, file);
+            return;
+        }
+        if (document != null) {
+            document = chain.transformDocument(document);
+        } else {
+            document = chain.transformToDocument(html != null ? html : InputReader.readForRewrite(file));
+        }
+        if (hints != null) {
+            hints.apply(document, pagePath);
+            hintsMarker.apply(document);
+        }
+        marker.apply(document);
         final String updatedHtml = document.outerHtml();
-        Files.asCharSink(file, charset).write(updatedHtml);
+        outputWriter.write(file, updatedHtml);
+    }
+
+    private static boolean hasMarkers(final List<TransformerCondition> conditions) {
+        for (final TransformerCondition condition : conditions) {
+            if (condition.hasMarkers()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasRequiredSelector(final List<TransformerCondition> conditions) {
+        for (final TransformerCondition condition : conditions) {
+            if (condition.hasRequiredSelector()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void logConditions() {
+        for (final TransformerCondition condition : conditions) {
+            getLog().info(condition.getTransformer().getClass().getSimpleName() + ": applied to "
+                    + condition.getHitCount() + " pages, skipped " + condition.getSkipCount());
+        }
+        if (skippedPages > 0) {
+            getLog().info("Skipped " + skippedPages + " pages with no applicable transformers");
+        }
+    }
+
+    /**
+     * @return the link graph file of this shard; when markdown-to-html generated a single shard of the site earlier
+     * in the build, the pages seen here are that shard's, and its link graph is kept separately
+     */
+    private File getLinkGraphFile() {
+        final int[] pageShard = FileShards.getPageShard(getPluginContext());
+        if (shardCount <= 1 && pageShard != null) {
+            return FileShards.getStateFile(linkGraphFile, pageShard[0], pageShard[1]);
+        }
+        return FileShards.getStateFile(linkGraphFile, shardIndex, shardCount);
+    }
+
+    /**
+     * @return the pages each page linked to in the previous build
+     */
+    private Map<String, Set<String>> readLinkGraph() throws MojoExecutionException {
+        final Map<String, Set<String>> links = new HashMap<>();
+        final File file = getLinkGraphFile();
+        if (file.isFile()) {
+            try {
+                for (final String line : Files.asCharSource(file, Charset.forName(CHARSET)).readLines()) {
+                    final String[] fields = line.split("\t", 3);
+                    if (fields.length == 3 && LINK.equals(fields[0])) {
+                        links.computeIfAbsent(fields[1], page -> new LinkedHashSet<>()).add(fields[2]);
+                    }
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to read link graph: " + file, e);
+            }
+        }
+        return links;
+    }
+
+    private void writeLinkGraph(final Map<String, Set<String>> links) throws MojoExecutionException {
+        final StringBuilder out = new StringBuilder();
+        for (final Map.Entry<String, Set<String>> entry : new TreeMap<>(links).entrySet()) {
+            for (final String target : new TreeSet<>(entry.getValue())) {
+                out.append(LINK).append('\t').append(entry.getKey()).append('\t').append(target).append('\n');
+            }
+        }
+        final File file = getLinkGraphFile();
+        try {
+            outputWriter.write(file, out.toString());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write link graph: " + file, e);
+        }
     }
 
     private String getFileRegex() {
@@ -1,14 +1,15 @@
 package com.icfnext.documentation.plugin;
 
-import com.google.common.io.Files;
-import com.icfnext.documentation.plugin.html.HtmlRenderer;
-import com.vladsch.flexmark.ext.tables.TablesExtension;
-import com.vladsch.flexmark.parser.Parser;
-import com.vladsch.flexmark.util.ast.Document;
-import com.vladsch.flexmark.util.ast.KeepType;
-import com.vladsch.flexmark.util.data.MutableDataHolder;
-import com.vladsch.flexmark.util.data.MutableDataSet;
-import org.apache.maven.plugin.AbstractMojo;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.icfnext.documentation.plugin.cache.PluginCache;
+import com.icfnext.documentation.plugin.io.FileHashIndex;
+import com.icfnext.documentation.plugin.io.FileShards;
+import com.icfnext.documentation.plugin.io.OutputWriter;
+import com.icfnext.documentation.plugin.markdown.DocumentSplitter;
+import com.icfnext.documentation.plugin.markdown.IncludeGraph;
+import com.icfnext.documentation.plugin.markdown.MarkdownConverter;
+import com.icfnext.documentation.plugin.markdown.MarkdownRenderer;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -16,14 +17,17 @@ import org.apache.maven.plugins.annotations.Parameter;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.Charset;
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
-@Mojo(name = "markdown-to-html")
-public class MarkdownToHtmlMojo extends AbstractMojo {
+@Mojo(name = "markdown-to-html", threadSafe = true)
+public class MarkdownToHtmlMojo extends AbstractShardedMojo {
 
     private static final String CHARSET = "UTF-8";
     private static final String REL_PATH_SEGMENT = "../";
 
+    private final OutputWriter outputWriter = new OutputWriter(Charset.forName(CHARSET));
+
     @Parameter(required = true)
     private File baseDir;
 
@@ -42,6 +46,19 @@ public class MarkdownToHtmlMojo extends AbstractMojo {
     @Parameter(defaultValue = "${project.outputDirectory}")
     private File outputDir;
 
+    /**
+     * Documents are split into separate pages at headings of this level or higher; 0 disables splitting by heading
+     */
+    @Parameter(defaultValue = "0")
+    private int splitHeadingLevel;
+
+    /**
+     * Documents are split at the next heading once a page exceeds this many characters of markdown; 0 disables
+     * splitting by size
+     */
+    @Parameter(defaultValue = "0")
+    private int splitThreshold;
+
     @Parameter
     private File headerHtmlFile;
     private String headerHtml = "<html><header></header><body>";
@@ -50,6 +67,36 @@ public class MarkdownToHtmlMojo extends AbstractMojo {
     private File footerHtmlFile;
     private String footerHtml = "</body></html>";
 
+    /**
+     * The directory against which include directives are resolved. If unset, they are resolved against the
+     * directory of the including file. Files in this directory are not converted into pages of their own.
+     */
+    @Parameter
+    private File fragmentDir;
+
+    /**
+     * Whether to skip pages whose source, included fragments, header, footer and configuration are unchanged since
+     * the previous build
+     */
+    @Parameter(defaultValue = "false")
+    private boolean incremental;
+
+    /**
+     * Where the pages each page includes and renders to are kept between builds, for incremental builds. In a
+     * sharded build, the shard is added to the file name.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/documentation/include-graph.txt")
+    private File includeGraphFile;
+    private IncludeGraph includeGraph;
+
+    /**
+     * Where the content hashes of pages and fragments are kept between builds, for incremental builds. In a sharded
+     * build, the shard is added to the file name.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/documentation/markdown-hashes.txt")
+    private File hashIndexFile;
+    private FileHashIndex hashIndex;
+
     public void execute() throws MojoExecutionException {
         if (!baseDir.exists()) {
             throw new MojoExecutionException("Parameter baseDir doesn't exist: " + baseDir.getAbsolutePath());
@@ -59,64 +106,88 @@ public class MarkdownToHtmlMojo extends AbstractMojo {
         final Charset charset = Charset.forName(CHARSET);
         try {
             if (headerHtmlFile != null) {
-                headerHtml = Files.asCharSource(headerHtmlFile, charset).read();
+                headerHtml = PluginCache.readFile(headerHtmlFile, charset);
             }
             if (footerHtmlFile != null) {
-                footerHtml = Files.asCharSource(footerHtmlFile, charset).read();
+                footerHtml = PluginCache.readFile(footerHtmlFile, charset);
             }
         } catch (IOException e) {
             throw new MojoExecutionException("Failed to get html header/footer", e);
         }
         final String fileRegex = getFileRegex();
-        handleDirectory(baseDir, fileRegex, "");
+        selectShard(baseDir, fileRegex, recursive, fragmentDir);
+        if (isSharded() && getPluginContext() != null) {
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> pluginContext = getPluginContext();
+            pluginContext.put(FileShards.PAGE_SHARD_CONTEXT_KEY, new int[]{shardIndex, shardCount});
+        }
+        final MarkdownConverter converter = new MarkdownConverter(getLog(), fixMarkdownLinks);
+        final DocumentSplitter splitter = new DocumentSplitter(splitHeadingLevel, splitThreshold);
+        final MarkdownRenderer renderer = new MarkdownRenderer(getLog(), outputWriter, converter, splitter, baseDir,
+                fragmentDir, outputDir, headerHtml, footerHtml);
+        if (incremental) {
+            try {
+                includeGraph = IncludeGraph.load(FileShards.getStateFile(includeGraphFile, shardIndex, shardCount));
+                hashIndex = FileHashIndex.load(FileShards.getStateFile(hashIndexFile, shardIndex, shardCount));
+            } catch (IOException | NumberFormatException e) {
+                throw new MojoExecutionException("Failed to read incremental build state", e);
+            }
+            renderer.setIncrementalState(includeGraph, hashIndex, getConfigurationFingerprint());
+        }
+        handleDirectory(baseDir, fileRegex, "", renderer);
+        if (incremental) {
+            try {
+                includeGraph.save(outputWriter);
+                hashIndex.save(outputWriter);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to write incremental build state", e);
+            }
+            getLog().info("Incremental build: " + renderer.getUpToDateCount() + " pages up to date");
+        }
+        outputWriter.logSummary(getLog());
+        PluginCache.logStats(getLog());
     }
 
-    private void handleDirectory(final File directory, final String fileRegex, final String relativePath)
-            throws MojoExecutionException {
+    private void handleDirectory(final File directory, final String fileRegex, final String relativePath,
+            final MarkdownRenderer renderer) throws MojoExecutionException {
         for (final File file : directory.listFiles()) {
-            if (file.isDirectory() && recursive) {
-                handleDirectory(file, fileRegex, REL_PATH_SEGMENT + relativePath);
-            } else if (file.isFile() && file.getName().matches(fileRegex)) {
+            if (file.isDirectory() && recursive && !isFragmentDir(file)) {
+                handleDirectory(file, fileRegex, REL_PATH_SEGMENT + relativePath, renderer);
+            } else if (file.isFile() && file.getName().matches(fileRegex) && isInShard(file)) {
                 try {
-                    convertFile(file, relativePath);
+                    renderer.render(file, relativePath);
                 } catch (IOException e) {
+                    getLog().warn("Failed to convert " + getPath(baseDir, file) + ": " + e.getMessage());
                     if (failOnError) {
-                        throw new MojoExecutionException("Failure adding table of contents", e);
+                        throw new MojoExecutionException("Failed to convert " + getPath(baseDir, file) + ": "
+                                + e.getMessage(), e);
                     }
                 }
             }
         }
     }
 
-    private void convertFile(final File file, final String relativePath) throws IOException {
-        final Charset charset = Charset.forName(CHARSET);
-        final String markdown = Files.asCharSource(file, charset).read();
-        final String html = markdownToHtml(markdown);
-        final String basePath = baseDir.getPath();
-        final String relPath = file.getPath().replace(basePath, "");
-        final String htmlRelPath = relPath.replaceAll("\\.[a-zA-Z0-9]+$", ".html");
-        final String htmlAbsolutePath = outputDir.getPath() + htmlRelPath;
-        final File htmlFile = new File(htmlAbsolutePath);
-        Files.createParentDirs(htmlFile);
-        final String correctedHeader = headerHtml.replaceAll("\\$\\{site-root}", relativePath);
-        final String correctedFooter = footerHtml.replaceAll("\\$\\{site-root}", relativePath);
-        Files.asCharSink(htmlFile, charset).write(correctedHeader + html + correctedFooter);
+    private String getConfigurationFingerprint() {
+        final Hasher hasher = Hashing.sha256().newHasher()
+                .putString(headerHtml, StandardCharsets.UTF_8)
+                .putString(footerHtml, StandardCharsets.UTF_8)
+                .putBoolean(fixMarkdownLinks)
+                .putInt(splitHeadingLevel)
+                .putInt(splitThreshold)
+                .putString(outputDir.getAbsolutePath(), StandardCharsets.UTF_8);
+        if (fragmentDir != null) {
+            hasher.putString(fragmentDir.getAbsolutePath(), StandardCharsets.UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    private boolean isFragmentDir(final File directory) {
+        return fragmentDir != null && fragmentDir.getAbsoluteFile().equals(directory.getAbsoluteFile());
     }
 
-    private String markdownToHtml(final String markdown) {
-        final MutableDataHolder options = new MutableDataSet()
-                .set(Parser.REFERENCES_KEEP, KeepType.LAST)
-                .set(Parser.HTML_BLOCK_PARSER, false)
-                .set(Parser.HTML_BLOCK_DEEP_PARSER, false)
-                .set(TablesExtension.COLUMN_SPANS, false)
-                .set(TablesExtension.APPEND_MISSING_COLUMNS, true)
-                .set(TablesExtension.DISCARD_EXTRA_COLUMNS, true)
-                .set(TablesExtension.HEADER_SEPARATOR_COLUMN_MATCH, true)
-                .set(Parser.EXTENSIONS, Arrays.asList(TablesExtension.create()));
-        final Parser parser = Parser.builder(options).build();
-        final Document document = parser.parse(markdown);
-        final HtmlRenderer htmlRenderer = new HtmlRenderer(getLog(), fixMarkdownLinks);
-        return htmlRenderer.render(document);
+    private static String getPath(final File directory, final File file) {
+        return directory.getAbsoluteFile().toPath().relativize(file.getAbsoluteFile().toPath()).toString()
+                .replace('\\', '/');
     }
 
     private String getFileRegex() {
@@ -0,0 +1,117 @@
+package com.icfnext.documentation.plugin;
+
+import com.google.common.io.Files;
+import com.icfnext.documentation.plugin.io.OutputWriter;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Combines the output trees of a sharded build (see the {@code shardIndex} and {@code shardCount} parameters) into
+ * one tree. Files present in several shards must be identical. The link graphs recorded by each shard's
+ * transform-html execution, listing the pages each page links to, are merged into one. Artifacts computed from the whole site, such as the
+ * service worker manifest or site bundle, should be generated from the merged tree.
+ */
+@Mojo(name = "merge-shards", threadSafe = true)
+public class MergeShardsMojo extends AbstractMojo {
+
+    private static final String CHARSET = "UTF-8";
+
+    private final OutputWriter outputWriter = new OutputWriter(Charset.forName(CHARSET));
+
+    @Parameter(required = true)
+    private List<File> shardDirs = new ArrayList<>();
+
+    @Parameter(required = true)
+    private File outputDir;
+
+    @Parameter(defaultValue = "true")
+    private boolean failOnError;
+
+    @Parameter
+    private List<File> linkGraphFiles = new ArrayList<>();
+
+    @Parameter(defaultValue = "${project.build.directory}/documentation/link-graph.txt")
+    private File linkGraphFile;
+
+    public void execute() throws MojoExecutionException {
+        final Map<String, File> merged = new HashMap<>();
+        for (final File shardDir : shardDirs) {
+            if (!shardDir.isDirectory()) {
+                throw new MojoExecutionException("Shard directory doesn't exist: " + shardDir.getAbsolutePath());
+            }
+            handleDirectory(shardDir, "", merged);
+        }
+        if (!linkGraphFiles.isEmpty()) {
+            mergeLinkGraphs();
+        }
+        getLog().info("Merged " + merged.size() + " file(s) from " + shardDirs.size() + " shard(s)");
+        outputWriter.logSummary(getLog());
+    }
+
+    private void handleDirectory(final File directory, final String relativePath, final Map<String, File> merged)
+            throws MojoExecutionException {
+        for (final File file : directory.listFiles()) {
+            final String path = relativePath + file.getName();
+            if (file.isDirectory()) {
+                handleDirectory(file, path + "/", merged);
+            } else if (file.isFile()) {
+                try {
+                    final File existing = merged.putIfAbsent(path, file);
+                    if (existing == null) {
+                        outputWriter.copy(file, new File(outputDir, path));
+                    } else if (!Files.asByteSource(file).contentEquals(Files.asByteSource(existing))) {
+                        getLog().warn("Conflicting shard outputs: " + existing + " and " + file);
+                        if (failOnError) {
+                            throw new MojoExecutionException("Shards produced different content for " + path);
+                        }
+                    }
+                } catch (IOException e) {
+                    if (failOnError) {
+                        throw new MojoExecutionException("Failure merging " + file, e);
+                    }
+                }
+            }
+        }
+    }
+
+    private void mergeLinkGraphs() throws MojoExecutionException {
+        final Set<String> links = new TreeSet<>();
+        for (final File file : linkGraphFiles) {
+            if (!file.isFile()) {
+                getLog().warn("Link graph not found: " + file);
+                continue;
+            }
+            try {
+                for (final String line : Files.asCharSource(file, Charset.forName(CHARSET)).readLines()) {
+                    // each shard lists the links of its own pages
+                    if (!line.isEmpty()) {
+                        links.add(line);
+                    }
+                }
+            } catch (IOException e) {
+                throw new MojoExecutionException("Failed to read link graph: " + file, e);
+            }
+        }
+        final StringBuilder out = new StringBuilder();
+        for (final String link : links) {
+            out.append(link).append('\n');
+        }
+        try {
+            outputWriter.write(linkGraphFile, out.toString());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write link graph: " + linkGraphFile, e);
+        }
+    }
+}
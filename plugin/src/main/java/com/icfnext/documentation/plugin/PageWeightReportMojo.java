@@ -0,0 +1,191 @@
+package com.icfnext.documentation.plugin;
+
+import com.icfnext.documentation.plugin.io.OutputWriter;
+import com.icfnext.documentation.plugin.report.PageMetrics;
+import com.icfnext.documentation.plugin.report.PageWeightReport;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Measures every page of the generated site in parallel, writes the measurements as a JSON and a sortable HTML
+ * report, and fails the build if any page, or the site as a whole, exceeds the configured budgets. A budget of 0 is
+ * not enforced.
+ */
+@Mojo(name = "page-weight-report", threadSafe = true)
+public class PageWeightReportMojo extends AbstractMojo {
+
+    private static final String CHARSET = "UTF-8";
+    private static final String JSON_REPORT = "page-weight.json";
+    private static final String HTML_REPORT = "page-weight.html";
+
+    private final OutputWriter outputWriter = new OutputWriter(Charset.forName(CHARSET));
+
+    @Parameter(required = true)
+    private File baseDir;
+
+    @Parameter(defaultValue = "true")
+    private boolean failOnError;
+
+    @Parameter(defaultValue = "true")
+    private boolean recursive;
+
+    @Parameter(defaultValue = "*.html")
+    private String fileMask;
+
+    @Parameter(defaultValue = "${project.build.directory}/documentation/report")
+    private File reportDir;
+
+    /**
+     * The number of worker threads; 0 uses one per available processor
+     */
+    @Parameter(defaultValue = "0")
+    private int threads;
+
+    @Parameter(defaultValue = "0")
+    private long maxHtmlBytes;
+
+    @Parameter(defaultValue = "0")
+    private long maxInlineDataBytes;
+
+    @Parameter(defaultValue = "0")
+    private int maxResources;
+
+    /**
+     * The budget for the HTML of a page plus the local assets it references
+     */
+    @Parameter(defaultValue = "0")
+    private long maxTotalBytes;
+
+    @Parameter(defaultValue = "0")
+    private int maxDomNodes;
+
+    @Parameter(defaultValue = "0")
+    private int maxDomDepth;
+
+    @Parameter(defaultValue = "0")
+    private long maxSiteHtmlBytes;
+
+    /**
+     * The budget for all pages plus every local asset referenced by at least one page
+     */
+    @Parameter(defaultValue = "0")
+    private long maxSiteTotalBytes;
+
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (!baseDir.exists()) {
+            throw new MojoExecutionException("Parameter baseDir doesn't exist: " + baseDir.getAbsolutePath());
+        } else if (!baseDir.isDirectory()) {
+            throw new MojoExecutionException("Parameter baseDir is not a directory: " + baseDir.getAbsolutePath());
+        }
+        final Map<File, Long> assetSizes = new ConcurrentHashMap<>();
+        final List<PageMetrics> pages = new ArrayList<>();
+        final int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        final ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        try {
+            final List<Future<PageMetrics>> futures = new ArrayList<>();
+            submitDirectory(executor, futures, baseDir, "", getFileRegex(), assetSizes);
+            awaitAll(futures, pages);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final Map<String, List<String>> violations = new TreeMap<>();
+        for (final PageMetrics page : pages) {
+            final List<String> pageViolations = new ArrayList<>();
+            checkBudget(pageViolations, "HTML size", page.getHtmlBytes(), maxHtmlBytes, "bytes");
+            checkBudget(pageViolations, "inline data", page.getInlineDataBytes(), maxInlineDataBytes, "bytes");
+            checkBudget(pageViolations, "referenced resources", page.getResourceCount(), maxResources, "");
+            checkBudget(pageViolations, "total size", page.getTotalBytes(), maxTotalBytes, "bytes");
+            checkBudget(pageViolations, "DOM nodes", page.getDomNodes(), maxDomNodes, "");
+            checkBudget(pageViolations, "DOM depth", page.getDomDepth(), maxDomDepth, "");
+            if (!pageViolations.isEmpty()) {
+                violations.put(page.getPath(), pageViolations);
+            }
+        }
+        final PageWeightReport report = new PageWeightReport(pages, violations, assetSizes);
+        final List<String> siteViolations = new ArrayList<>();
+        checkBudget(siteViolations, "site HTML size", report.getSiteHtmlBytes(), maxSiteHtmlBytes, "bytes");
+        checkBudget(siteViolations, "site total size", report.getSiteTotalBytes(), maxSiteTotalBytes, "bytes");
+
+        try {
+            outputWriter.write(new File(reportDir, JSON_REPORT), report.toJson());
+            outputWriter.write(new File(reportDir, HTML_REPORT), report.toHtml());
+        } catch (IOException e) {
+            throw new MojoExecutionException("Failed to write page weight report to " + reportDir, e);
+        }
+        getLog().info("Measured " + pages.size() + " pages: " + report.getSiteHtmlBytes() + " HTML bytes, "
+                + report.getSiteTotalBytes() + " bytes including assets; report written to "
+                + new File(reportDir, HTML_REPORT));
+
+        if (!violations.isEmpty() || !siteViolations.isEmpty()) {
+            for (final Map.Entry<String, List<String>> entry : violations.entrySet()) {
+                for (final String violation : entry.getValue()) {
+                    getLog().error("Page budget exceeded: " + entry.getKey() + ": " + violation);
+                }
+            }
+            for (final String violation : siteViolations) {
+                getLog().error("Site budget exceeded: " + violation);
+            }
+            throw new MojoFailureException(violations.size() + " page(s) and " + siteViolations.size()
+                    + " site-wide measure(s) exceeded their budgets; see " + new File(reportDir, HTML_REPORT));
+        }
+    }
+
+    private void submitDirectory(final ExecutorService executor, final List<Future<PageMetrics>> futures,
+            final File directory, final String relativePath, final String fileRegex,
+            final Map<File, Long> assetSizes) {
+        for (final File file : directory.listFiles()) {
+            final String path = relativePath + file.getName();
+            if (file.isDirectory() && recursive) {
+                submitDirectory(executor, futures, file, path + "/", fileRegex, assetSizes);
+            } else if (file.isFile() && file.getName().matches(fileRegex)) {
+                futures.add(executor.submit(() -> PageMetrics.measure(file, path, baseDir, assetSizes)));
+            }
+        }
+    }
+
+    private void awaitAll(final List<Future<PageMetrics>> futures, final List<PageMetrics> pages)
+            throws MojoExecutionException {
+        for (final Future<PageMetrics> future : futures) {
+            try {
+                pages.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while measuring pages", e);
+            } catch (ExecutionException e) {
+                getLog().warn("Failure measuring page: " + e.getCause().getMessage());
+                if (failOnError) {
+                    throw new MojoExecutionException("Failure measuring page", e.getCause());
+                }
+            }
+        }
+    }
+
+    private static void checkBudget(final List<String> violations, final String measure, final long value,
+            final long budget, final String unit) {
+        if (budget > 0 && value > budget) {
+            final String suffix = unit.isEmpty() ? "" : " " + unit;
+            violations.add(measure + " " + value + suffix + " exceeds the budget of " + budget + suffix);
+        }
+    }
+
+    private String getFileRegex() {
+        return fileMask.replaceAll("\\.", "\\\\.").replaceAll("[*]", ".*");
+    }
+}
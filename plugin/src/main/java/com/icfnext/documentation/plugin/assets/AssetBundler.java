@@ -0,0 +1,107 @@
+package com.icfnext.documentation.plugin.assets;
+
+import com.icfnext.documentation.plugin.io.InputReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Concatenates stylesheets or scripts into a single bundle. Relative {@code url()} references in stylesheets are
+ * rewritten to stay valid from the location of the bundle, and {@code @charset} rules and source map comments,
+ * which are only meaningful at the start of or alongside the original files, are removed.
+ */
+public final class AssetBundler {
+
+    private static final Pattern CSS_URL = Pattern.compile("url\\(\\s*(['\"]?)([^'\")]+)\\1\\s*\\)");
+    private static final Pattern CSS_CHARSET = Pattern.compile("@charset\\s+['\"][^'\"]*['\"]\\s*;");
+    private static final Pattern CSS_SOURCE_MAP = Pattern.compile("/\\*[#@]\\s*sourceMappingURL=[^*]*\\*/");
+    private static final Pattern JS_SOURCE_MAP = Pattern.compile("(?m)^//[#@]\\s*sourceMappingURL=.*$");
+
+    private AssetBundler() {
+    }
+
+    /**
+     * @param siteDir the directory the paths are relative to
+     * @param paths the stylesheets to bundle, in order, relative to the site directory using {@code /}
+     * @param bundlePath the path of the bundle relative to the site directory
+     * @return the bundle content
+     */
+    public static String bundleStylesheets(final File siteDir, final List<String> paths, final String bundlePath)
+            throws IOException {
+        final StringBuilder out = new StringBuilder();
+        for (final String path : paths) {
+            String css = InputReader.read(new File(siteDir, path));
+            css = CSS_CHARSET.matcher(css).replaceAll("");
+            css = CSS_SOURCE_MAP.matcher(css).replaceAll("");
+            out.append("/* ").append(path).append(" */\n");
+            appendRewrittenUrls(out, css, path, bundlePath);
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * @param siteDir the directory the paths are relative to
+     * @param paths the scripts to bundle, in order, relative to the site directory using {@code /}
+     * @return the bundle content
+     */
+    public static String bundleScripts(final File siteDir, final List<String> paths) throws IOException {
+        final StringBuilder out = new StringBuilder();
+        for (final String path : paths) {
+            final String js = InputReader.read(new File(siteDir, path));
+            out.append("/* ").append(path).append(" */\n");
+            out.append(JS_SOURCE_MAP.matcher(js).replaceAll(""));
+            // guard against a file ending without a semicolon being joined to the next one
+            out.append("\n;\n");
+        }
+        return out.toString();
+    }
+
+    private static void appendRewrittenUrls(final StringBuilder out, final String css, final String path,
+            final String bundlePath) {
+        final Matcher matcher = CSS_URL.matcher(css);
+        int last = 0;
+        while (matcher.find()) {
+            final String url = matcher.group(2).trim();
+            if (isRelative(url)) {
+                out.append(css, last, matcher.start());
+                out.append("url(").append(matcher.group(1)).append(rebase(url, path, bundlePath))
+                        .append(matcher.group(1)).append(')');
+                last = matcher.end();
+            }
+        }
+        out.append(css, last, css.length());
+    }
+
+    private static boolean isRelative(final String url) {
+        return !url.isEmpty() && !url.startsWith("/") && !url.startsWith("#") && !url.startsWith("data:")
+                && !url.matches("^[a-zA-Z][a-zA-Z0-9+.-]*:.*");
+    }
+
+    /**
+     * Rewrites a URL relative to the stylesheet at {@code path} to one relative to the bundle
+     */
+    private static String rebase(final String url, final String path, final String bundlePath) {
+        int end = url.length();
+        for (final char c : new char[]{'?', '#'}) {
+            final int index = url.indexOf(c);
+            if (index >= 0 && index < end) {
+                end = index;
+            }
+        }
+        final Path target = getParent(path).resolve(url.substring(0, end)).normalize();
+        final Path bundleParent = getParent(bundlePath);
+        final Path rebased = bundleParent.toString().isEmpty() ? target : bundleParent.relativize(target);
+        return rebased.toString().replace('\\', '/') + url.substring(end);
+    }
+
+    private static Path getParent(final String path) {
+        final Path parent = Paths.get(path).getParent();
+        return parent != null ? parent : Paths.get("");
+    }
+}
@@ -0,0 +1,144 @@
+package com.icfnext.documentation.plugin.benchmark;
+
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+/**
+ * Generates a synthetic markdown documentation set for benchmarking. Pages have nested headings, paragraphs with
+ * inline formatting, tables, fenced code blocks, links to other pages and images, and are spread over
+ * subdirectories. Output is deterministic for a given seed.
+ */
+public class CorpusGenerator {
+
+    private static final int PAGES_PER_DIRECTORY = 100;
+    private static final String[] WORDS = {"maven", "plugin", "markdown", "document", "page", "build", "module",
+            "render", "heading", "table", "content", "configure", "execution", "artifact", "transform", "output",
+            "source", "resource", "pipeline", "release"};
+    private static final String[] LANGUAGES = {"java", "xml", "bash", "json"};
+
+    private final long seed;
+
+    public CorpusGenerator(final long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Writes the given number of pages below the target directory
+     */
+    public void generate(final File targetDir, final int pageCount) throws IOException {
+        final Random random = new Random(seed);
+        for (int page = 0; page < pageCount; page++) {
+            final File file = new File(targetDir, getPagePath(page));
+            Files.createParentDirs(file);
+            Files.asCharSink(file, StandardCharsets.UTF_8).write(generatePage(random, page, pageCount));
+        }
+    }
+
+    private static String getPagePath(final int page) {
+        return "section-" + (page / PAGES_PER_DIRECTORY) + "/page-" + page + ".md";
+    }
+
+    private static String generatePage(final Random random, final int page, final int pageCount) {
+        final StringBuilder out = new StringBuilder();
+        out.append("# ").append(sentence(random, 3)).append(": Page ").append(page).append("\n\n");
+        paragraph(random, out);
+        final int sections = 2 + random.nextInt(5);
+        for (int section = 0; section < sections; section++) {
+            out.append("## ").append(sentence(random, 3)).append("\n\n");
+            paragraph(random, out);
+            final int subsections = random.nextInt(4);
+            for (int subsection = 0; subsection < subsections; subsection++) {
+                out.append("### ").append(sentence(random, 4)).append("\n\n");
+                paragraph(random, out);
+                if (random.nextInt(3) == 0) {
+                    out.append("#### ").append(sentence(random, 2)).append("\n\n");
+                    paragraph(random, out);
+                }
+                switch (random.nextInt(4)) {
+                    case 0:
+                        table(random, out);
+                        break;
+                    case 1:
+                        codeBlock(random, out);
+                        break;
+                    case 2:
+                        list(random, out);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            final int target = random.nextInt(pageCount);
+            out.append("See [").append(sentence(random, 2)).append("](../").append(getPagePath(target))
+                    .append(") and ![diagram](../images/diagram-").append(random.nextInt(10)).append(".png)\n\n");
+        }
+        return out.toString();
+    }
+
+    private static void paragraph(final Random random, final StringBuilder out) {
+        final int sentences = 2 + random.nextInt(6);
+        for (int i = 0; i < sentences; i++) {
+            final String sentence = sentence(random, 6 + random.nextInt(12));
+            switch (random.nextInt(6)) {
+                case 0:
+                    out.append("**").append(sentence).append("**");
+                    break;
+                case 1:
+                    out.append('*').append(sentence).append('*');
+                    break;
+                case 2:
+                    out.append(sentence).append(" `").append(WORDS[random.nextInt(WORDS.length)]).append('`');
+                    break;
+                default:
+                    out.append(sentence);
+            }
+            out.append(i % 3 == 2 ? ".\n" : ". ");
+        }
+        out.append("\n\n");
+    }
+
+    private static void table(final Random random, final StringBuilder out) {
+        final int columns = 3 + random.nextInt(3);
+        final int rows = 3 + random.nextInt(15);
+        for (int row = -2; row < rows; row++) {
+            out.append('|');
+            for (int column = 0; column < columns; column++) {
+                out.append(' ').append(row == -1 ? "---" : sentence(random, 1 + random.nextInt(3))).append(" |");
+            }
+            out.append('\n');
+        }
+        out.append('\n');
+    }
+
+    private static void codeBlock(final Random random, final StringBuilder out) {
+        out.append("```").append(LANGUAGES[random.nextInt(LANGUAGES.length)]).append('\n');
+        final int lines = 3 + random.nextInt(20);
+        for (int line = 0; line < lines; line++) {
+            out.append("    ").append(sentence(random, 1 + random.nextInt(6)).replace(' ', '.')).append("();\n");
+        }
+        out.append("```\n\n");
+    }
+
+    private static void list(final Random random, final StringBuilder out) {
+        final int items = 2 + random.nextInt(6);
+        for (int item = 0; item < items; item++) {
+            out.append(random.nextBoolean() ? "- " : (item + 1) + ". ").append(sentence(random, 5)).append('\n');
+        }
+        out.append('\n');
+    }
+
+    private static String sentence(final Random random, final int words) {
+        final StringBuilder out = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                out.append(' ');
+            }
+            out.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,146 @@
+package com.icfnext.documentation.plugin.benchmark;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Configures and runs this plugin's mojos outside of a Maven execution. Parameters are injected into fields the way
+ * Maven does: literal default values are read from the plugin descriptor, and explicit values override them.
+ */
+public class MojoRunner {
+
+    private static final String PLUGIN_DESCRIPTOR = "META-INF/maven/plugin.xml";
+
+    private final Log log;
+    private final Map<String, Map<String, String>> defaults = new HashMap<>();
+
+    public MojoRunner(final Log log) throws MojoExecutionException {
+        this.log = log;
+        try (final InputStream in = getClass().getClassLoader().getResourceAsStream(PLUGIN_DESCRIPTOR)) {
+            if (in == null) {
+                throw new MojoExecutionException("Plugin descriptor not found: " + PLUGIN_DESCRIPTOR);
+            }
+            final Document descriptor = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+            final NodeList mojos = descriptor.getElementsByTagName("mojo");
+            for (int i = 0; i < mojos.getLength(); i++) {
+                final Element mojo = (Element) mojos.item(i);
+                final String implementation = childText(mojo, "implementation");
+                final Map<String, String> mojoDefaults = new HashMap<>();
+                final Element configuration = child(mojo, "configuration");
+                if (configuration != null) {
+                    final NodeList parameters = configuration.getChildNodes();
+                    for (int j = 0; j < parameters.getLength(); j++) {
+                        if (parameters.item(j) instanceof Element) {
+                            final Element parameter = (Element) parameters.item(j);
+                            final String defaultValue = parameter.getAttribute("default-value");
+                            if (!defaultValue.isEmpty() && !defaultValue.contains("${")) {
+                                mojoDefaults.put(parameter.getTagName(), defaultValue);
+                            }
+                        }
+                    }
+                }
+                defaults.put(implementation, mojoDefaults);
+            }
+        } catch (MojoExecutionException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new MojoExecutionException("Failed to read plugin descriptor", e);
+        }
+    }
+
+    /**
+     * Creates, configures and executes a mojo
+     * @param mojoClass the mojo implementation
+     * @param parameters parameter values, overriding the defaults from the plugin descriptor
+     */
+    public void run(final Class<? extends AbstractMojo> mojoClass, final Map<String, Object> parameters)
+            throws MojoExecutionException, MojoFailureException {
+        final AbstractMojo mojo;
+        try {
+            mojo = mojoClass.getDeclaredConstructor().newInstance();
+            final Map<String, String> mojoDefaults = defaults.get(mojoClass.getName());
+            if (mojoDefaults != null) {
+                for (final Map.Entry<String, String> entry : mojoDefaults.entrySet()) {
+                    if (!parameters.containsKey(entry.getKey())) {
+                        setField(mojo, entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            for (final Map.Entry<String, Object> entry : parameters.entrySet()) {
+                setField(mojo, entry.getKey(), entry.getValue());
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new MojoExecutionException("Failed to configure " + mojoClass.getSimpleName(), e);
+        }
+        mojo.setLog(log);
+        mojo.execute();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void setField(final Object target, final String name, final Object value)
+            throws ReflectiveOperationException {
+        final Field field = findField(target.getClass(), name);
+        field.setAccessible(true);
+        final Class<?> type = field.getType();
+        if (!(value instanceof String) || type == String.class) {
+            if (value instanceof List && field.get(target) instanceof List) {
+                ((List<Object>) field.get(target)).addAll((List<Object>) value);
+            } else {
+                field.set(target, value);
+            }
+        } else if (type == boolean.class || type == Boolean.class) {
+            field.set(target, Boolean.valueOf((String) value));
+        } else if (type == int.class || type == Integer.class) {
+            field.set(target, Integer.valueOf((String) value));
+        } else if (type == long.class || type == Long.class) {
+            field.set(target, Long.valueOf((String) value));
+        } else if (type == double.class || type == Double.class) {
+            field.set(target, Double.valueOf((String) value));
+        } else if (type == File.class) {
+            field.set(target, new File((String) value));
+        } else {
+            throw new IllegalArgumentException("Unsupported parameter type for " + name + ": " + type.getName());
+        }
+    }
+
+    private static Field findField(final Class<?> type, final String name) throws NoSuchFieldException {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredField(name);
+            } catch (NoSuchFieldException e) {
+                // try the superclass
+            }
+        }
+        throw new NoSuchFieldException(type.getName() + "." + name);
+    }
+
+    private static Element child(final Element parent, final String name) {
+        final NodeList children = parent.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            final Node child = children.item(i);
+            if (child instanceof Element && ((Element) child).getTagName().equals(name)) {
+                return (Element) child;
+            }
+        }
+        return null;
+    }
+
+    private static String childText(final Element parent, final String name) {
+        final Element child = child(parent, name);
+        return child != null ? child.getTextContent().trim() : null;
+    }
+}
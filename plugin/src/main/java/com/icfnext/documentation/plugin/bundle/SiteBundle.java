@@ -0,0 +1,152 @@
+package com.icfnext.documentation.plugin.bundle;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read access to a site bundle written by {@link SiteBundleWriter}. The bundle is memory-mapped, and entries are
+ * returned as read-only views of the mapping, so content can be served without copying. Lookups binary search the
+ * sorted index and are safe to perform from several threads.
+ * <p>
+ * The mapping remains valid until it is garbage collected, even after {@link #close()}.
+ */
+public class SiteBundle implements Closeable {
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int entryCount;
+    private final int indexOffset;
+    private final int pathTableOffset;
+
+    private SiteBundle(final FileChannel channel, final MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.limit() < SiteBundleFormat.HEADER_SIZE || buffer.getInt(0) != SiteBundleFormat.MAGIC) {
+            throw new IOException("Not a site bundle");
+        }
+        if (buffer.getInt(4) != SiteBundleFormat.VERSION) {
+            throw new IOException("Unsupported site bundle version: " + buffer.getInt(4));
+        }
+        this.entryCount = buffer.getInt(SiteBundleFormat.HEADER_ENTRY_COUNT);
+        this.indexOffset = (int) buffer.getLong(SiteBundleFormat.HEADER_INDEX_OFFSET);
+        this.pathTableOffset = (int) buffer.getLong(SiteBundleFormat.HEADER_PATH_TABLE_OFFSET);
+    }
+
+    public static SiteBundle open(final File file) throws IOException {
+        final FileChannel channel = new RandomAccessFile(file, "r").getChannel();
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Site bundle is too large to map: " + file);
+            }
+            return new SiteBundle(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * @param path the '/' separated path of the entry
+     * @return a read-only view of the entry content, or null if the bundle has no such entry
+     */
+    public ByteBuffer get(final String path) {
+        final int record = find(path);
+        return record < 0 ? null : slice(record, SiteBundleFormat.RECORD_DATA_OFFSET,
+                SiteBundleFormat.RECORD_DATA_LENGTH);
+    }
+
+    /**
+     * @param path the '/' separated path of the entry
+     * @return a read-only view of the gzip-compressed entry content, or null if the bundle has no such entry or it
+     * was not precompressed
+     */
+    public ByteBuffer getGzip(final String path) {
+        final int record = find(path);
+        if (record < 0 || buffer.getLong(record + SiteBundleFormat.RECORD_GZIP_LENGTH) == 0) {
+            return null;
+        }
+        return slice(record, SiteBundleFormat.RECORD_GZIP_OFFSET, SiteBundleFormat.RECORD_GZIP_LENGTH);
+    }
+
+    public boolean contains(final String path) {
+        return find(path) >= 0;
+    }
+
+    /**
+     * @return the paths of all entries, in index order
+     */
+    public List<String> getPaths() {
+        final List<String> paths = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            final int record = indexOffset + i * SiteBundleFormat.INDEX_RECORD_SIZE;
+            final byte[] pathBytes = new byte[buffer.getInt(record + SiteBundleFormat.RECORD_PATH_LENGTH)];
+            final ByteBuffer view = buffer.duplicate();
+            ((Buffer) view).position(pathTableOffset + buffer.getInt(record + SiteBundleFormat.RECORD_PATH_OFFSET));
+            view.get(pathBytes);
+            paths.add(new String(pathBytes, StandardCharsets.UTF_8));
+        }
+        return paths;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return the position of the index record for the path, or -1 if it is not present
+     */
+    private int find(final String path) {
+        final byte[] key = path.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = entryCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int record = indexOffset + middle * SiteBundleFormat.INDEX_RECORD_SIZE;
+            final int comparison = comparePath(record, key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    private int comparePath(final int record, final byte[] key) {
+        final int pathStart = pathTableOffset + buffer.getInt(record + SiteBundleFormat.RECORD_PATH_OFFSET);
+        final int pathLength = buffer.getInt(record + SiteBundleFormat.RECORD_PATH_LENGTH);
+        final int length = Math.min(pathLength, key.length);
+        for (int i = 0; i < length; i++) {
+            final int difference = (buffer.get(pathStart + i) & 0xff) - (key[i] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return pathLength - key.length;
+    }
+
+    private ByteBuffer slice(final int record, final int offsetField, final int lengthField) {
+        final ByteBuffer view = buffer.asReadOnlyBuffer();
+        final int offset = (int) buffer.getLong(record + offsetField);
+        final int length = (int) buffer.getLong(record + lengthField);
+        ((Buffer) view).position(offset);
+        ((Buffer) view).limit(offset + length);
+        return view.slice();
+    }
+}
@@ -0,0 +1,104 @@
+package com.icfnext.documentation.plugin.bundle;
+
+import com.google.common.io.ByteStreams;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compares the latency of reading entries from a site bundle with reading the same files from the directory tree
+ * the bundle was built from. Both sides read the full content into a reused buffer, so the comparison includes
+ * locating the entry and touching its data. Every entry is first checked against its source file.
+ */
+public class SiteBundleBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 1000;
+
+    private final Log log;
+
+    public SiteBundleBenchmark(final Log log) {
+        this.log = log;
+    }
+
+    public void run(final SiteBundle bundle, final File baseDir, final int iterations) throws IOException {
+        final List<String> paths = bundle.getPaths();
+        if (paths.isEmpty()) {
+            log.warn("Site bundle is empty; skipping benchmark");
+            return;
+        }
+        verify(bundle, baseDir, paths);
+        final byte[] scratch = new byte[64 * 1024];
+        // the same pseudo-random sequence of paths is used for both sides
+        final long seed = System.nanoTime();
+        measure(bundle, baseDir, paths, scratch, new Random(seed), WARMUP_ITERATIONS, true);
+        measure(bundle, baseDir, paths, scratch, new Random(seed), WARMUP_ITERATIONS, false);
+        final long bundleNanos = measure(bundle, baseDir, paths, scratch, new Random(seed), iterations, true);
+        final long fileNanos = measure(bundle, baseDir, paths, scratch, new Random(seed), iterations, false);
+        log.info(String.format("Bundle lookup: %.2f us/entry; filesystem: %.2f us/entry (%d lookups over %d entries)",
+                bundleNanos / 1000.0 / iterations, fileNanos / 1000.0 / iterations, iterations, paths.size()));
+    }
+
+    /**
+     * Checks that every entry, and its precompressed variant, matches the file it was built from, so that the
+     * timings are of correct lookups
+     * @throws IOException if an entry differs
+     */
+    private static void verify(final SiteBundle bundle, final File baseDir, final List<String> paths)
+            throws IOException {
+        for (final String path : paths) {
+            final byte[] expected = Files.readAllBytes(new File(baseDir, path).toPath());
+            if (!Arrays.equals(expected, toBytes(bundle.get(path)))) {
+                throw new IOException("Site bundle entry differs from " + path);
+            }
+            final ByteBuffer gzip = bundle.getGzip(path);
+            if (gzip != null) {
+                final ByteArrayOutputStream content = new ByteArrayOutputStream(expected.length);
+                try (final InputStream in = new GZIPInputStream(new ByteArrayInputStream(toBytes(gzip)))) {
+                    ByteStreams.copy(in, content);
+                }
+                if (!Arrays.equals(expected, content.toByteArray())) {
+                    throw new IOException("Precompressed site bundle entry differs from " + path);
+                }
+            }
+        }
+    }
+
+    private static byte[] toBytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private static long measure(final SiteBundle bundle, final File baseDir, final List<String> paths,
+            final byte[] scratch, final Random random, final int iterations, final boolean fromBundle)
+            throws IOException {
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            final String path = paths.get(random.nextInt(paths.size()));
+            if (fromBundle) {
+                final ByteBuffer content = bundle.get(path);
+                while (content.hasRemaining()) {
+                    content.get(scratch, 0, Math.min(scratch.length, content.remaining()));
+                }
+            } else {
+                try (final InputStream in = new FileInputStream(new File(baseDir, path))) {
+                    while (in.read(scratch) >= 0) {
+                        // discard
+                    }
+                }
+            }
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,50 @@
+package com.icfnext.documentation.plugin.bundle;
+
+/**
+ * Layout of a site bundle file. All numbers are big-endian.
+ * <pre>
+ * header      magic (int), version (int), entry count (int), reserved (int),
+ *             index offset (long), path table offset (long)
+ * data        file contents and precompressed variants, back to back
+ * index       one fixed-size record per entry, sorted by the unsigned bytes of its UTF-8 path:
+ *             path offset (int), path length (int), data offset (long), data length (long),
+ *             gzip offset (long), gzip length (long; 0 if the entry has no precompressed variant)
+ * path table  UTF-8 paths, '/' separated and relative to the bundle root
+ * </pre>
+ * Data offsets are absolute positions in the file.
+ */
+final class SiteBundleFormat {
+
+    static final int MAGIC = 0x444f4342; // "DOCB"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int INDEX_RECORD_SIZE = 40;
+
+    static final int HEADER_ENTRY_COUNT = 8;
+    static final int HEADER_INDEX_OFFSET = 16;
+    static final int HEADER_PATH_TABLE_OFFSET = 24;
+
+    static final int RECORD_PATH_OFFSET = 0;
+    static final int RECORD_PATH_LENGTH = 4;
+    static final int RECORD_DATA_OFFSET = 8;
+    static final int RECORD_DATA_LENGTH = 16;
+    static final int RECORD_GZIP_OFFSET = 24;
+    static final int RECORD_GZIP_LENGTH = 32;
+
+    private SiteBundleFormat() {
+    }
+
+    /**
+     * Compares UTF-8 encoded paths as unsigned bytes, which is the order of the bundle index
+     */
+    static int compare(final byte[] left, final byte[] right) {
+        final int length = Math.min(left.length, right.length);
+        for (int i = 0; i < length; i++) {
+            final int difference = (left[i] & 0xff) - (right[i] & 0xff);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return left.length - right.length;
+    }
+}
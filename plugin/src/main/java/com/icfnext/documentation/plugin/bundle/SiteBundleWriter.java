@@ -0,0 +1,172 @@
+package com.icfnext.documentation.plugin.bundle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a set of files into a single indexed site bundle. See {@link SiteBundleFormat} for the layout.
+ */
+public class SiteBundleWriter {
+
+    private static final String[] COMPRESSIBLE_EXTENSIONS =
+            {".html", ".htm", ".css", ".js", ".json", ".svg", ".txt", ".xml", ".md"};
+
+    private final boolean precompress;
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * @param precompress whether to store a gzip variant of text entries, where it is smaller than the original
+     */
+    public SiteBundleWriter(final boolean precompress) {
+        this.precompress = precompress;
+    }
+
+    /**
+     * @param path the '/' separated path of the entry within the bundle
+     * @param file the file whose content is stored for the entry
+     */
+    public void add(final String path, final File file) {
+        entries.add(new Entry(path, file));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void write(final File bundleFile) throws IOException {
+        Collections.sort(entries, (left, right) -> SiteBundleFormat.compare(left.pathBytes, right.pathBytes));
+        for (int i = 1; i < entries.size(); i++) {
+            if (entries.get(i).path.equals(entries.get(i - 1).path)) {
+                throw new IOException("Duplicate bundle entry: " + entries.get(i).path);
+            }
+        }
+        try (final RandomAccessFile out = new RandomAccessFile(bundleFile, "rw")) {
+            out.setLength(0);
+            final FileChannel channel = out.getChannel();
+            long position = SiteBundleFormat.HEADER_SIZE;
+            // transferTo writes at the channel position, which has to be moved past the header written last
+            channel.position(position);
+            for (final Entry entry : entries) {
+                entry.dataOffset = position;
+                try (final FileChannel source = new RandomAccessFile(entry.file, "r").getChannel()) {
+                    entry.dataLength = source.size();
+                    transferFully(source, entry.dataLength, channel, entry.path);
+                }
+                position += entry.dataLength;
+                channel.position(position);
+                if (precompress && isCompressible(entry.path)) {
+                    final byte[] compressed = gzip(entry.file);
+                    if (compressed.length < entry.dataLength) {
+                        entry.gzipOffset = position;
+                        entry.gzipLength = compressed.length;
+                        writeFully(channel, ByteBuffer.wrap(compressed));
+                        position += compressed.length;
+                    }
+                }
+            }
+
+            final long indexOffset = position;
+            final ByteBuffer index = ByteBuffer.allocate(entries.size() * SiteBundleFormat.INDEX_RECORD_SIZE);
+            int pathOffset = 0;
+            for (final Entry entry : entries) {
+                index.putInt(pathOffset)
+                        .putInt(entry.pathBytes.length)
+                        .putLong(entry.dataOffset)
+                        .putLong(entry.dataLength)
+                        .putLong(entry.gzipOffset)
+                        .putLong(entry.gzipLength);
+                pathOffset += entry.pathBytes.length;
+            }
+            ((Buffer) index).flip();
+            writeFully(channel, index);
+
+            final long pathTableOffset = indexOffset + index.capacity();
+            final ByteBuffer pathTable = ByteBuffer.allocate(pathOffset);
+            for (final Entry entry : entries) {
+                pathTable.put(entry.pathBytes);
+            }
+            ((Buffer) pathTable).flip();
+            writeFully(channel, pathTable);
+
+            final ByteBuffer header = ByteBuffer.allocate(SiteBundleFormat.HEADER_SIZE)
+                    .putInt(SiteBundleFormat.MAGIC)
+                    .putInt(SiteBundleFormat.VERSION)
+                    .putInt(entries.size())
+                    .putInt(0)
+                    .putLong(indexOffset)
+                    .putLong(pathTableOffset);
+            ((Buffer) header).flip();
+            channel.position(0);
+            writeFully(channel, header);
+        }
+    }
+
+    private static boolean isCompressible(final String path) {
+        final String lowerPath = path.toLowerCase(Locale.ROOT);
+        for (final String extension : COMPRESSIBLE_EXTENSIONS) {
+            if (lowerPath.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(final File file) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            java.nio.file.Files.copy(file.toPath(), out);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Copies the first {@code count} bytes of the source. transferTo returns 0 once the source position is past its
+     * end, so a source that shrinks while it is copied fails the bundle rather than looping forever.
+     */
+    static void transferFully(final FileChannel source, final long count, final FileChannel target,
+            final String path) throws IOException {
+        long transferred = 0;
+        while (transferred < count) {
+            final long chunk = source.transferTo(transferred, count - transferred, target);
+            if (chunk <= 0) {
+                throw new IOException("File changed while being bundled: " + path + " (expected " + count
+                        + " bytes, read " + transferred + ")");
+            }
+            transferred += chunk;
+        }
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static class Entry {
+
+        private final String path;
+        private final byte[] pathBytes;
+        private final File file;
+        private long dataOffset;
+        private long dataLength;
+        private long gzipOffset;
+        private long gzipLength;
+
+        private Entry(final String path, final File file) {
+            this.path = path;
+            this.pathBytes = path.getBytes(StandardCharsets.UTF_8);
+            this.file = file;
+        }
+    }
+}
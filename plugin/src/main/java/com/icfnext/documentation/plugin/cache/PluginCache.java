@@ -0,0 +1,80 @@
+package com.icfnext.documentation.plugin.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A JVM-scoped cache for state that is expensive to rebuild: parsers, templates and encoded resources. The cache lives as long as the plugin's class realm, so under a persistent Maven daemon (mvnd), and
+ * across several executions in one build, later executions start warm.
+ * <p>
+ * Keys must describe everything the value depends on. Values derived from files are keyed by a hash of the file
+ * content, so that a changed file is never served from the cache, whatever its size and modification time. The cache is bounded, and entries that are
+ * not used for an hour are evicted. The maximum size can be set with the {@code documentation.cache.maxEntries}
+ * system property.
+ */
+public final class PluginCache {
+
+    private static final long MAX_ENTRIES = Long.getLong("documentation.cache.maxEntries", 256);
+    private static final long EXPIRE_AFTER_ACCESS_MINUTES = 60;
+
+    private static final Cache<String, Object> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfterAccess(EXPIRE_AFTER_ACCESS_MINUTES, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+    private PluginCache() {
+    }
+
+    /**
+     * @param key a key describing the value and all configuration it depends on
+     * @param type the type of the value
+     * @param loader creates the value if it is not cached
+     * @return the cached or newly created value
+     */
+    public static <T> T get(final String key, final Class<T> type, final Callable<? extends T> loader) {
+        try {
+            return type.cast(CACHE.get(type.getName() + ":" + key, loader));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            throw new IllegalStateException("Failed to create cached value: " + key, e.getCause());
+        }
+    }
+
+    /**
+     * Reads a file, reusing the decoded content from a previous read of the same bytes
+     */
+    public static String readFile(final File file, final Charset charset) throws IOException {
+        final byte[] content = Files.toByteArray(file);
+        final String key = "file:" + Hashing.sha256().hashBytes(content) + ":" + charset;
+        return get(key, String.class, () -> charset.decode(ByteBuffer.wrap(content)).toString());
+    }
+
+    static CacheStats stats() {
+        return CACHE.stats();
+    }
+
+    public static void invalidateAll() {
+        CACHE.invalidateAll();
+    }
+
+    public static void logStats(final Log log) {
+        if (log.isDebugEnabled()) {
+            final CacheStats stats = CACHE.stats();
+            log.debug("Plugin cache: " + CACHE.size() + " entries, " + stats.hitCount() + " hits, "
+                    + stats.missCount() + " misses, " + stats.evictionCount() + " evictions");
+        }
+    }
+}
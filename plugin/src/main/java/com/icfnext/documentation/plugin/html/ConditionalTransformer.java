@@ -0,0 +1,34 @@
+package com.icfnext.documentation.plugin.html;
+
+/**
+ * May be implemented by an {@link HtmlTransformer} or {@link StreamingHtmlTransformer} to declare which pages it
+ * applies to, so that other pages can be skipped without running it. Conditions are checked cheapest first: the
+ * path pattern, then the markers (against the raw bytes of the page, before it is parsed), then the selector. A
+ * transformer applies to a page when all of its declared conditions hold; conditions returning null always hold.
+ */
+public interface ConditionalTransformer {
+
+    /**
+     * @return a glob matched against the path of the page relative to the base directory, using {@code /} as the
+     *         separator: {@code *} and {@code ?} match within a path segment, and {@code **} matches across segments
+     */
+    default String getPathPattern() {
+        return null;
+    }
+
+    /**
+     * @return strings of which at least one must occur in the page source, such as {@code "<nav"}
+     */
+    default String[] getMarkers() {
+        return null;
+    }
+
+    /**
+     * @return a CSS selector that must match at least one element of the page. Checking it requires the page to be
+     *         parsed, so a marker should be preferred where one is precise enough.
+     */
+    default String getRequiredSelector() {
+        return null;
+    }
+
+}
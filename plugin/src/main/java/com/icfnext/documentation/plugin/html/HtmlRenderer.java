@@ -35,19 +35,55 @@ import org.apache.maven.plugin.logging.Log;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.Map;
 
 public class HtmlRenderer implements IRender {
 
     private final Log log;
     private final boolean fixMarkdownLinks;
+    private final Map<Node, String> headingIds;
+    private final Map<String, String> linkRewrites;
+    private final Map<Node, Document> inclusions;
 
     public HtmlRenderer(final Log log, final boolean fixMarkdownLinks) {
+        this(log, fixMarkdownLinks, Collections.<Node, String>emptyMap(), Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * @param log the plugin log
+     * @param fixMarkdownLinks whether links to local markdown files should be corrected
+     * @param headingIds ids to render on heading elements, keyed by heading node
+     * @param linkRewrites replacement URLs, keyed by the URL as written in the markdown
+     */
+    public HtmlRenderer(final Log log, final boolean fixMarkdownLinks, final Map<Node, String> headingIds,
+            final Map<String, String> linkRewrites) {
+        this(log, fixMarkdownLinks, headingIds, linkRewrites, Collections.<Node, Document>emptyMap());
+    }
+
+    /**
+     * @param log the plugin log
+     * @param fixMarkdownLinks whether links to local markdown files should be corrected
+     * @param headingIds ids to render on heading elements, keyed by heading node
+     * @param linkRewrites replacement URLs, keyed by the URL as written in the markdown
+     * @param inclusions documents whose content is rendered in place of a node, such as an include directive
+     */
+    public HtmlRenderer(final Log log, final boolean fixMarkdownLinks, final Map<Node, String> headingIds,
+            final Map<String, String> linkRewrites, final Map<Node, Document> inclusions) {
         this.log = log;
         this.fixMarkdownLinks = fixMarkdownLinks;
+        this.headingIds = headingIds;
+        this.linkRewrites = linkRewrites;
+        this.inclusions = inclusions;
     }
 
     @Override
     public void render(final Node node, final Appendable appendable) {
+        final Document included = inclusions.get(node);
+        if (included != null) {
+            included.getChildren().forEach(child -> render(child, appendable));
+            return;
+        }
         final String nodeName = node.getNodeName();
         boolean omitChildren = false;
         try {
@@ -242,7 +278,12 @@ public class HtmlRenderer implements IRender {
 
     private void openHeading(final Heading heading, final Appendable appendable) throws IOException {
         final int level = heading.getLevel();
-        appendable.append("<h").append(String.valueOf(level)).append(">");
+        appendable.append("<h").append(String.valueOf(level));
+        final String id = headingIds.get(heading);
+        if (id != null) {
+            appendable.append(" id='").append(id).append("'");
+        }
+        appendable.append(">");
     }
 
     private void closeHeading(final Heading heading, final Appendable appendable) throws IOException {
@@ -267,7 +308,9 @@ public class HtmlRenderer implements IRender {
     }
 
     private void openLink(final Link link, final Appendable appendable) throws IOException {
-        appendable.append("<a href='").append(link.getUrl()).append("'>");
+        final String url = link.getUrl().toString();
+        final String rewrite = linkRewrites.get(url);
+        appendable.append("<a href='").append(rewrite != null ? rewrite : url).append("'>");
     }
 
     private void closeLink(final Link link, final Appendable appendable) throws IOException {
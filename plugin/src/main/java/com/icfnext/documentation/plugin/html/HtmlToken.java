@@ -0,0 +1,200 @@
+package com.icfnext.documentation.plugin.html;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A token produced by {@link HtmlTokenizer}. Tokens keep the markup they were read from, and are written back
+ * unchanged unless they have been modified, so that streaming transformations only touch what they rewrite.
+ */
+public abstract class HtmlToken {
+
+    private final String raw;
+
+    HtmlToken(final String raw) {
+        this.raw = raw;
+    }
+
+    /**
+     * @return the markup the token was read from
+     */
+    public String getRaw() {
+        return raw;
+    }
+
+    public abstract void write(final Appendable out) throws IOException;
+
+    @Override
+    public String toString() {
+        final StringBuilder out = new StringBuilder();
+        try {
+            write(out);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * An opening tag. Attribute values are kept as they appear in the markup; character references are not decoded.
+     */
+    public static class StartTag extends HtmlToken {
+
+        private final String name;
+        private final Map<String, String> attributes;
+        private final boolean selfClosing;
+        private boolean modified;
+
+        StartTag(final String raw, final String name, final Map<String, String> attributes, final boolean selfClosing) {
+            super(raw);
+            this.name = name;
+            this.attributes = attributes;
+            this.selfClosing = selfClosing;
+        }
+
+        public StartTag(final String name) {
+            this(null, name.toLowerCase(), new LinkedHashMap<String, String>(), false);
+            this.modified = true;
+        }
+
+        /**
+         * @return the lower case tag name
+         */
+        public String getName() {
+            return name;
+        }
+
+        public boolean isSelfClosing() {
+            return selfClosing;
+        }
+
+        public boolean hasAttribute(final String attribute) {
+            return attributes.containsKey(attribute.toLowerCase());
+        }
+
+        /**
+         * @return the attribute value, an empty string for a valueless attribute, or null if it is not present
+         */
+        public String getAttribute(final String attribute) {
+            return attributes.get(attribute.toLowerCase());
+        }
+
+        public StartTag setAttribute(final String attribute, final String value) {
+            attributes.put(attribute.toLowerCase(), value);
+            modified = true;
+            return this;
+        }
+
+        public StartTag removeAttribute(final String attribute) {
+            if (attributes.remove(attribute.toLowerCase()) != null) {
+                modified = true;
+            }
+            return this;
+        }
+
+        public boolean hasClass(final String className) {
+            final String classes = getAttribute("class");
+            return classes != null && (" " + classes + " ").contains(" " + className + " ");
+        }
+
+        public StartTag addClass(final String className) {
+            if (!hasClass(className)) {
+                final String classes = getAttribute("class");
+                setAttribute("class", classes == null || classes.isEmpty() ? className : classes + " " + className);
+            }
+            return this;
+        }
+
+        @Override
+        public void write(final Appendable out) throws IOException {
+            if (!modified) {
+                out.append(getRaw());
+                return;
+            }
+            out.append('<').append(name);
+            for (final Map.Entry<String, String> attribute : attributes.entrySet()) {
+                out.append(' ').append(attribute.getKey());
+                if (!attribute.getValue().isEmpty()) {
+                    out.append("=\"").append(attribute.getValue().replace("\"", "&quot;")).append('"');
+                }
+            }
+            out.append(selfClosing ? "/>" : ">");
+        }
+    }
+
+    /**
+     * A closing tag.
+     */
+    public static class EndTag extends HtmlToken {
+
+        private final String name;
+
+        EndTag(final String raw, final String name) {
+            super(raw);
+            this.name = name;
+        }
+
+        public EndTag(final String name) {
+            this("</" + name.toLowerCase() + ">", name.toLowerCase());
+        }
+
+        /**
+         * @return the lower case tag name
+         */
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void write(final Appendable out) throws IOException {
+            out.append(getRaw());
+        }
+    }
+
+    /**
+     * Character data between tags, including the content of script and style elements. The text is kept as markup;
+     * character references are not decoded.
+     */
+    public static class Text extends HtmlToken {
+
+        private String text;
+
+        public Text(final String text) {
+            super(text);
+            this.text = text;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public void setText(final String text) {
+            this.text = text;
+        }
+
+        public boolean isWhitespace() {
+            return text.trim().isEmpty();
+        }
+
+        @Override
+        public void write(final Appendable out) throws IOException {
+            out.append(text);
+        }
+    }
+
+    /**
+     * Comments, doctype declarations and processing instructions, which are always written back unchanged.
+     */
+    public static class Markup extends HtmlToken {
+
+        Markup(final String raw) {
+            super(raw);
+        }
+
+        @Override
+        public void write(final Appendable out) throws IOException {
+            out.append(getRaw());
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.icfnext.documentation.plugin.html;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A lenient, streaming HTML tokenizer. Markup is read incrementally from a {@link Reader} and split into start tags,
+ * end tags, text and other markup, without building a document tree. A small buffer of upcoming tokens is available
+ * through {@link #peek(int)}.
+ */
+public class HtmlTokenizer {
+
+    public static final int MAX_LOOKAHEAD = 16;
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final String[] RAW_TEXT_ELEMENTS = {"script", "style", "textarea", "title"};
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private String rawTextElement;
+
+    private final List<HtmlToken> lookahead = new ArrayList<>();
+
+    public HtmlTokenizer(final Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the next token, or null at the end of the input
+     */
+    public HtmlToken next() throws IOException {
+        if (!lookahead.isEmpty()) {
+            return lookahead.remove(0);
+        }
+        return read();
+    }
+
+    /**
+     * @param index the number of tokens to look past, 0 being the token that {@link #next()} will return
+     * @return the upcoming token, or null if the input ends before it
+     */
+    public HtmlToken peek(final int index) throws IOException {
+        if (index < 0 || index >= MAX_LOOKAHEAD) {
+            throw new IllegalArgumentException("Lookahead is limited to " + MAX_LOOKAHEAD + " tokens: " + index);
+        }
+        while (lookahead.size() <= index) {
+            final HtmlToken token = read();
+            if (token == null) {
+                return null;
+            }
+            lookahead.add(token);
+        }
+        return lookahead.get(index);
+    }
+
+    private HtmlToken read() throws IOException {
+        if (!ensure(1)) {
+            return null;
+        }
+        if (rawTextElement != null) {
+            final String element = rawTextElement;
+            rawTextElement = null;
+            final StringBuilder raw = new StringBuilder();
+            while (ensure(1) && !startsWithIgnoreCase("</" + element)) {
+                raw.append(consume());
+            }
+            if (raw.length() > 0) {
+                return new HtmlToken.Text(raw.toString());
+            }
+            return read();
+        }
+        if (buffer[position] == '<') {
+            if (startsWithIgnoreCase("<!--")) {
+                return new HtmlToken.Markup(readUntil("-->"));
+            } else if (startsWithIgnoreCase("<!") || startsWithIgnoreCase("<?")) {
+                return new HtmlToken.Markup(readUntil(">"));
+            } else if (startsWithIgnoreCase("</") && isLetter(peekChar(2))) {
+                return readEndTag();
+            } else if (isLetter(peekChar(1))) {
+                return readStartTag();
+            }
+        }
+        final StringBuilder raw = new StringBuilder();
+        raw.append(consume());
+        while (ensure(1) && buffer[position] != '<') {
+            raw.append(consume());
+        }
+        return new HtmlToken.Text(raw.toString());
+    }
+
+    private HtmlToken readEndTag() throws IOException {
+        final String raw = readUntil(">");
+        final String name = raw.substring(2).replaceAll("[\\s/>].*$", "").toLowerCase();
+        return new HtmlToken.EndTag(raw, name);
+    }
+
+    private HtmlToken readStartTag() throws IOException {
+        final StringBuilder raw = new StringBuilder();
+        raw.append(consume());
+        final String name = readName(raw).toLowerCase();
+        final Map<String, String> attributes = new LinkedHashMap<>();
+        boolean selfClosing = false;
+        while (ensure(1)) {
+            skipWhitespace(raw);
+            if (!ensure(1)) {
+                break;
+            }
+            final char c = buffer[position];
+            if (c == '>') {
+                raw.append(consume());
+                break;
+            } else if (c == '/') {
+                raw.append(consume());
+                selfClosing = ensure(1) && buffer[position] == '>';
+                continue;
+            }
+            selfClosing = false;
+            final String attribute = readName(raw).toLowerCase();
+            if (attribute.isEmpty()) {
+                // stray character -- keep it in the raw markup and move on
+                raw.append(consume());
+                continue;
+            }
+            skipWhitespace(raw);
+            String value = "";
+            if (ensure(1) && buffer[position] == '=') {
+                raw.append(consume());
+                skipWhitespace(raw);
+                value = readAttributeValue(raw);
+            }
+            if (!attributes.containsKey(attribute)) {
+                attributes.put(attribute, value);
+            }
+        }
+        if (!selfClosing) {
+            for (final String element : RAW_TEXT_ELEMENTS) {
+                if (element.equals(name)) {
+                    rawTextElement = element;
+                }
+            }
+        }
+        return new HtmlToken.StartTag(raw.toString(), name, attributes, selfClosing);
+    }
+
+    private String readName(final StringBuilder raw) throws IOException {
+        final StringBuilder name = new StringBuilder();
+        while (ensure(1)) {
+            final char c = buffer[position];
+            if (Character.isWhitespace(c) || c == '/' || c == '>' || c == '=') {
+                break;
+            }
+            name.append(c);
+            raw.append(consume());
+        }
+        return name.toString();
+    }
+
+    private String readAttributeValue(final StringBuilder raw) throws IOException {
+        final StringBuilder value = new StringBuilder();
+        if (!ensure(1)) {
+            return "";
+        }
+        final char quote = buffer[position];
+        if (quote == '"' || quote == '\'') {
+            raw.append(consume());
+            while (ensure(1) && buffer[position] != quote) {
+                value.append(buffer[position]);
+                raw.append(consume());
+            }
+            if (ensure(1)) {
+                raw.append(consume());
+            }
+        } else {
+            while (ensure(1) && !Character.isWhitespace(buffer[position]) && buffer[position] != '>') {
+                value.append(buffer[position]);
+                raw.append(consume());
+            }
+        }
+        return value.toString();
+    }
+
+    private void skipWhitespace(final StringBuilder raw) throws IOException {
+        while (ensure(1) && Character.isWhitespace(buffer[position])) {
+            raw.append(consume());
+        }
+    }
+
+    private String readUntil(final String terminator) throws IOException {
+        final StringBuilder raw = new StringBuilder();
+        while (ensure(1)) {
+            if (startsWithIgnoreCase(terminator)) {
+                for (int i = 0; i < terminator.length(); i++) {
+                    raw.append(consume());
+                }
+                break;
+            }
+            raw.append(consume());
+        }
+        return raw.toString();
+    }
+
+    private char consume() {
+        return buffer[position++];
+    }
+
+    private int peekChar(final int offset) throws IOException {
+        return ensure(offset + 1) ? buffer[position + offset] : -1;
+    }
+
+    private boolean startsWithIgnoreCase(final String prefix) throws IOException {
+        if (!ensure(prefix.length())) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(buffer[position + i]) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ensures that at least the given number of characters are buffered
+     * @return false if the input ends first
+     */
+    private boolean ensure(final int count) throws IOException {
+        while (limit - position < count) {
+            if (position > 0) {
+                System.arraycopy(buffer, position, buffer, 0, limit - position);
+                limit -= position;
+                position = 0;
+            }
+            final int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read < 0) {
+                return false;
+            }
+            limit += read;
+        }
+        return true;
+    }
+
+    private static boolean isLetter(final int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
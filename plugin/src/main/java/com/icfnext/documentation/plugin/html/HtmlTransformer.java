@@ -2,6 +2,10 @@ package com.icfnext.documentation.plugin.html;
 
 import org.jsoup.nodes.Document;
 
+/**
+ * Applies a structural change to a generated page. A single instance may be applied to several documents
+ * concurrently, so implementations should not keep per-document state in fields.
+ */
 public interface HtmlTransformer {
 
     void transform(final Document document);
@@ -0,0 +1,209 @@
+package com.icfnext.documentation.plugin.html;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An ordered chain of {@link HtmlTransformer} and {@link StreamingHtmlTransformer} instances. Consecutive streaming
+ * transformers are applied together in a single pass over the token stream; a document tree is only built for
+ * DOM-based transformers.
+ */
+public class HtmlTransformerChain {
+
+    private final List<Segment> segments = new ArrayList<>();
+
+    /**
+     * @param transformer an {@link HtmlTransformer} or {@link StreamingHtmlTransformer}
+     * @throws IllegalArgumentException if the transformer implements neither interface
+     */
+    public void add(final Object transformer) {
+        if (transformer instanceof StreamingHtmlTransformer) {
+            final Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (last != null && last.domTransformer == null) {
+                last.streamingTransformers.add((StreamingHtmlTransformer) transformer);
+            } else {
+                final Segment segment = new Segment(null);
+                segment.streamingTransformers.add((StreamingHtmlTransformer) transformer);
+                segments.add(segment);
+            }
+        } else if (transformer instanceof HtmlTransformer) {
+            segments.add(new Segment((HtmlTransformer) transformer));
+        } else {
+            throw new IllegalArgumentException("Not an HTML transformer: " + transformer.getClass().getName());
+        }
+    }
+
+    /**
+     * @return a copy of this chain, with a transformer added at the end
+     */
+    public HtmlTransformerChain with(final Object transformer) {
+        final HtmlTransformerChain chain = new HtmlTransformerChain();
+        for (final Segment segment : segments) {
+            if (segment.domTransformer != null) {
+                chain.add(segment.domTransformer);
+            }
+            for (final StreamingHtmlTransformer streamingTransformer : segment.streamingTransformers) {
+                chain.add(streamingTransformer);
+            }
+        }
+        chain.add(transformer);
+        return chain;
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /**
+     * @return true if the chain contains no DOM-based transformers, and can be applied with {@link #stream}
+     */
+    public boolean isStreaming() {
+        for (final Segment segment : segments) {
+            if (segment.domTransformer != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies a chain of streaming transformers, writing the result directly to the output
+     * @throws IllegalStateException if the chain contains a DOM-based transformer
+     */
+    public void stream(final Reader in, final Writer out) throws IOException {
+        if (!isStreaming()) {
+            throw new IllegalStateException("Transformer chain requires a document tree");
+        }
+        final List<StreamingHtmlTransformer> transformers = new ArrayList<>();
+        for (final Segment segment : segments) {
+            transformers.addAll(segment.streamingTransformers);
+        }
+        streamSegment(transformers, in, out);
+    }
+
+    /**
+     * Applies the chain to a page, returning the transformed document tree
+     */
+    public Document transformToDocument(final String html) throws IOException {
+        return apply(html, null);
+    }
+
+    /**
+     * Applies the chain to a page that has already been parsed, returning the transformed document tree. The given
+     * document may be modified in place.
+     */
+    public Document transformDocument(final Document document) throws IOException {
+        return apply(null, document);
+    }
+
+    private Document apply(final String html, final Document parsed) throws IOException {
+        String current = html;
+        Document document = parsed;
+        for (final Segment segment : segments) {
+            if (segment.domTransformer != null) {
+                if (document == null) {
+                    document = Jsoup.parse(current);
+                }
+                segment.domTransformer.transform(document);
+            } else {
+                if (document != null) {
+                    current = document.outerHtml();
+                    document = null;
+                }
+                final StringWriter out = new StringWriter(current.length());
+                streamSegment(segment.streamingTransformers, new StringReader(current), out);
+                current = out.toString();
+            }
+        }
+        return document != null ? document : Jsoup.parse(current);
+    }
+
+    /**
+     * Applies the chain to a page, returning the transformed markup
+     */
+    public String transform(final String html) throws IOException {
+        if (isStreaming()) {
+            final StringWriter out = new StringWriter(html.length());
+            stream(new StringReader(html), out);
+            return out.toString();
+        }
+        return transformToDocument(html).outerHtml();
+    }
+
+    private static void streamSegment(final List<StreamingHtmlTransformer> transformers, final Reader in,
+            final Writer out) throws IOException {
+        final HtmlTokenizer tokenizer = new HtmlTokenizer(in);
+        Stage stage = null;
+        for (int i = transformers.size() - 1; i >= 0; i--) {
+            stage = new Stage(transformers.get(i), tokenizer, stage, out);
+        }
+        for (HtmlToken token = tokenizer.next(); token != null; token = tokenizer.next()) {
+            if (stage != null) {
+                stage.accept(token);
+            } else {
+                token.write(out);
+            }
+        }
+        out.flush();
+    }
+
+    private static class Segment {
+
+        private final HtmlTransformer domTransformer;
+        private final List<StreamingHtmlTransformer> streamingTransformers = new ArrayList<>();
+
+        private Segment(final HtmlTransformer domTransformer) {
+            this.domTransformer = domTransformer;
+        }
+    }
+
+    private static class Stage implements StreamingContext {
+
+        private final StreamingHtmlTransformer transformer;
+        private final HtmlTokenizer tokenizer;
+        private final Stage next;
+        private final Writer out;
+
+        private Stage(final StreamingHtmlTransformer transformer, final HtmlTokenizer tokenizer, final Stage next,
+                final Writer out) {
+            this.transformer = transformer;
+            this.tokenizer = tokenizer;
+            this.next = next;
+            this.out = out;
+        }
+
+        private void accept(final HtmlToken token) throws IOException {
+            if (token instanceof HtmlToken.StartTag) {
+                transformer.startTag((HtmlToken.StartTag) token, this);
+            } else if (token instanceof HtmlToken.EndTag) {
+                transformer.endTag((HtmlToken.EndTag) token, this);
+            } else if (token instanceof HtmlToken.Text) {
+                transformer.text((HtmlToken.Text) token, this);
+            } else {
+                emit(token);
+            }
+        }
+
+        @Override
+        public void emit(final HtmlToken token) throws IOException {
+            if (next != null) {
+                next.accept(token);
+            } else {
+                token.write(out);
+            }
+        }
+
+        @Override
+        public HtmlToken peek(final int index) throws IOException {
+            return tokenizer.peek(index);
+        }
+    }
+}
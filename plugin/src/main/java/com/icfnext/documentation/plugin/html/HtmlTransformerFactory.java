@@ -0,0 +1,71 @@
+package com.icfnext.documentation.plugin.html;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Instantiates configured {@link HtmlTransformer} and {@link StreamingHtmlTransformer} implementations by class
+ * name.
+ */
+public final class HtmlTransformerFactory {
+
+    /**
+     * The shared instances of {@link ThreadSafeTransformer} classes, by the class loader they were loaded through.
+     * Class loaders are held weakly, and instances softly, since each instance references its class loader.
+     */
+    private static final Cache<ClassLoader, Map<String, Object>> SHARED = CacheBuilder.newBuilder()
+            .weakKeys()
+            .softValues()
+            .build();
+
+    private HtmlTransformerFactory() {
+    }
+
+    /**
+     * @param className the fully qualified name of a class implementing {@link HtmlTransformer} or
+     *                  {@link StreamingHtmlTransformer}
+     * @param classLoader the class loader used to resolve the class
+     * @return a new transformer instance
+     * @throws ClassNotFoundException if the class cannot be found
+     * @throws ReflectiveOperationException if the class cannot be instantiated
+     * @throws IllegalArgumentException if the class implements neither transformer interface
+     */
+    public static Object create(final String className, final ClassLoader classLoader)
+            throws ReflectiveOperationException {
+        final Class<?> transformerClass = classLoader.loadClass(className);
+        if (!HtmlTransformer.class.isAssignableFrom(transformerClass)
+                && !StreamingHtmlTransformer.class.isAssignableFrom(transformerClass)) {
+            throw new IllegalArgumentException("Transformer does not implement HtmlTransformer: " + className);
+        }
+        return transformerClass.getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Returns a transformer instance shared with other executions in the same JVM if the class is marked
+     * {@link ThreadSafeTransformer}, creating it if needed, and a new instance otherwise.
+     * @see #create(String, ClassLoader)
+     */
+    public static Object getShared(final String className, final ClassLoader classLoader)
+            throws ReflectiveOperationException {
+        if (!classLoader.loadClass(className).isAnnotationPresent(ThreadSafeTransformer.class)) {
+            return create(className, classLoader);
+        }
+        final Map<String, Object> instances;
+        try {
+            instances = SHARED.get(classLoader, ConcurrentHashMap::new);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+        final Object instance = instances.get(className);
+        if (instance != null) {
+            return instance;
+        }
+        final Object created = create(className, classLoader);
+        final Object previous = instances.putIfAbsent(className, created);
+        return previous != null ? previous : created;
+    }
+}
@@ -1,6 +1,7 @@
 package com.icfnext.documentation.plugin.html;
 
 import com.google.common.io.ByteStreams;
+import com.icfnext.documentation.plugin.cache.PluginCache;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -10,9 +11,19 @@ import java.io.InputStream;
 import java.time.ZonedDateTime;
 import java.util.Base64;
 
-public class IcfNextTransformer implements HtmlTransformer {
+@ThreadSafeTransformer
+public class IcfNextTransformer implements HtmlTransformer, ConditionalTransformer {
 
     private static final String DEFAULT_FOOTER_MESSAGE_TPL = "Copyright %s ICF Next";
+    private static final String LOGO_KEY = "icfnext-logo";
+
+    /**
+     * The layout only applies to html pages, not to other files matched by a broader file mask
+     */
+    @Override
+    public String getPathPattern() {
+        return "**/*.html";
+    }
 
     @Override
     public void transform(final Document document) {
@@ -27,13 +38,7 @@ public class IcfNextTransformer implements HtmlTransformer {
         final Element footer = new Element("footer");
         final Element copyright = new Element("div");
 
-        final String base64Image;
-        try (final InputStream inputStream = getClass().getClassLoader().getResourceAsStream("logo.png")) {
-            final byte[] bytes = ByteStreams.toByteArray(inputStream);
-            base64Image = Base64.getEncoder().encodeToString(bytes);
-        } catch (IOException e) {
-            throw new IllegalStateException("Unable to read logo");
-        }
+        final String base64Image = PluginCache.get(LOGO_KEY, String.class, this::encodeLogo);
 
         logo.attr("src", "data:image/png;base64," + base64Image);
         logoContainer.appendChild(logo);
@@ -84,6 +89,15 @@ public class IcfNextTransformer implements HtmlTransformer {
         copyright.text(getFooterText());
     }
 
+    private String encodeLogo() {
+        try (final InputStream inputStream = getClass().getClassLoader().getResourceAsStream("logo.png")) {
+            final byte[] bytes = ByteStreams.toByteArray(inputStream);
+            return Base64.getEncoder().encodeToString(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read logo");
+        }
+    }
+
     private String getFooterText() {
         final ZonedDateTime now = ZonedDateTime.now();
         final int year = now.getYear();
@@ -0,0 +1,122 @@
+package com.icfnext.documentation.plugin.html;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.icfnext.documentation.plugin.io.InputReader;
+import org.jsoup.nodes.Document;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A meta tag recording that a goal has rewritten a page, and a hash of the configuration it used. Goals that rewrite
+ * pages in place add the marker, and check for it before parsing a page, so that running them again over their own
+ * output, from any execution, does not apply their changes twice. A page carrying the marker of the goal with a
+ * different hash is {@link Status#OUTDATED}.
+ * <p>
+ * The marker is added at the start of the page head, and is found by scanning the start of the file. Pages without
+ * a head element, such as those generated with the default header, get the marker before their first element, where
+ * HTML parsers place it in the implied head.
+ */
+public class ProcessingMarker {
+
+    private static final String NAME_PREFIX = "documentation:";
+    private static final int SCAN_LIMIT = 16 * 1024;
+
+    public enum Status {
+        /** The page has not been processed */
+        ABSENT,
+        /** The page has been processed with the current configuration */
+        UP_TO_DATE,
+        /** The page has been processed with a different configuration */
+        OUTDATED
+    }
+
+    private final String name;
+    private final String fingerprint;
+    private final byte[] prefix;
+
+    /**
+     * @param goal the goal rewriting pages; the marker does not depend on the execution, so that running the goal
+     * from the command line over pages processed by a build execution with the same configuration skips them
+     * @param configuration the configuration values that affect the result
+     */
+    public ProcessingMarker(final String goal, final Object... configuration) {
+        this.name = NAME_PREFIX + goal;
+        final Hasher hasher = Hashing.sha256().newHasher();
+        for (final Object value : configuration) {
+            hasher.putString(String.valueOf(value), StandardCharsets.UTF_8).putChar('\0');
+        }
+        this.fingerprint = hasher.hash().toString().substring(0, 16);
+        this.prefix = ("<meta name=\"" + name + "\" content=\"").getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Status check(final File file) throws IOException {
+        final ByteBuffer bytes = InputReader.readPrefix(file, SCAN_LIMIT);
+        final int last = bytes.limit() - prefix.length;
+        outer:
+        for (int i = bytes.position(); i <= last; i++) {
+            for (int j = 0; j < prefix.length; j++) {
+                if (bytes.get(i + j) != prefix[j]) {
+                    continue outer;
+                }
+            }
+            final int start = i + prefix.length;
+            if (start + fingerprint.length() >= bytes.limit()) {
+                return Status.OUTDATED;
+            }
+            for (int j = 0; j < fingerprint.length(); j++) {
+                if (bytes.get(start + j) != fingerprint.charAt(j)) {
+                    return Status.OUTDATED;
+                }
+            }
+            return bytes.get(start + fingerprint.length()) == '"' ? Status.UP_TO_DATE : Status.OUTDATED;
+        }
+        return Status.ABSENT;
+    }
+
+    /**
+     * Adds the marker to a parsed page, replacing any previous marker of the same goal
+     */
+    public void apply(final Document document) {
+        document.getElementsByAttributeValue("name", name).remove();
+        document.head().prependElement("meta").attr("name", name).attr("content", fingerprint);
+    }
+
+    /**
+     * @return a streaming transformer adding the marker after the opening head tag, or before the first element other
+     * than {@code html} if the page has no head tag. The transformer keeps state, so a new one is needed for each
+     * page.
+     */
+    public StreamingHtmlTransformer asStreamingTransformer() {
+        return new StreamingHtmlTransformer() {
+
+            private boolean added;
+
+            @Override
+            public void startTag(final HtmlToken.StartTag tag, final StreamingContext context) throws IOException {
+                if (added || "html".equals(tag.getName())) {
+                    context.emit(tag);
+                } else if ("head".equals(tag.getName())) {
+                    context.emit(tag);
+                    emitMarker(context);
+                } else {
+                    emitMarker(context);
+                    context.emit(tag);
+                }
+            }
+
+            private void emitMarker(final StreamingContext context) throws IOException {
+                context.emit(new HtmlToken.StartTag("meta").setAttribute("name", name)
+                        .setAttribute("content", fingerprint));
+                added = true;
+            }
+        };
+    }
+}
@@ -0,0 +1,290 @@
+package com.icfnext.documentation.plugin.html;
+
+import com.icfnext.documentation.plugin.io.InputReader;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Adds resource hints to pages, based on the internal link graph of the site. Each page gets {@code prefetch} hints
+ * for the pages a reader is most likely to visit next: its previous/next pages, followed by the pages it links to
+ * most, with ties broken by how often the rest of the site links to them. Stylesheets and scripts referenced from
+ * the page head get {@code preload} hints, as do fonts linked from the head or declared by {@code @font-face} rules
+ * in its local stylesheets. Only the first font of each {@code src} list is preloaded, since that is the format a
+ * current browser uses.
+ * <p>
+ * Links are recorded as each page is processed, so site-wide link counts are those of the previous build (see
+ * {@link #getLinks()}); hints are stable once the link graph stops changing.
+ */
+public class ResourceHints {
+
+    private static final String GENERATED_ATTRIBUTE = "data-resource-hint";
+    private static final String[] FONT_EXTENSIONS = {".woff2", ".woff", ".ttf", ".otf"};
+    private static final Pattern CSS_COMMENT = Pattern.compile("/\\*.*?\\*/", Pattern.DOTALL);
+    private static final Pattern CSS_FONT_FACE = Pattern.compile("@font-face\\s*\\{([^}]*)}",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CSS_FONT_SRC = Pattern.compile("(?:^|[;\\s])src\\s*:([^;]*)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CSS_URL = Pattern.compile("url\\(\\s*(['\"]?)([^'\")]+)\\1\\s*\\)");
+
+    private final int maxPrefetch;
+    private final Map<String, Integer> previousInboundLinks;
+    private final File siteDir;
+    private final Map<String, Set<String>> links = new ConcurrentHashMap<>();
+    private final Map<String, List<String>> stylesheetFonts = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxPrefetch the maximum number of pages to prefetch from each page
+     * @param previousInboundLinks the number of links to each page, by site-relative path, from the previous build
+     * @param siteDir the directory page paths are relative to, from which stylesheets are read for their fonts
+     */
+    public ResourceHints(final int maxPrefetch, final Map<String, Integer> previousInboundLinks,
+            final File siteDir) {
+        this.maxPrefetch = maxPrefetch;
+        this.previousInboundLinks = previousInboundLinks;
+        this.siteDir = siteDir;
+    }
+
+    /**
+     * Records the internal links of a page and adds hints to its head
+     * @param document the rendered page
+     * @param pagePath the '/' separated path of the page, relative to the site root
+     */
+    public void apply(final Document document, final String pagePath) {
+        final URI pageUri;
+        try {
+            pageUri = new URI(null, null, pagePath, null);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid page path: " + pagePath, e);
+        }
+        final Map<String, String> hrefs = new LinkedHashMap<>();
+        final Map<String, Integer> linkCounts = new LinkedHashMap<>();
+        final Set<String> prevNext = new LinkedHashSet<>();
+        for (final Element anchor : document.select("a[href], link[rel~=^(prev|next)$][href]")) {
+            final String href = anchor.attr("href");
+            final String target = resolve(pageUri, href);
+            if (target == null || target.equals(pagePath)) {
+                continue;
+            }
+            hrefs.putIfAbsent(target, stripFragment(href));
+            final String rel = anchor.attr("rel");
+            if ("prev".equals(rel) || "next".equals(rel)) {
+                prevNext.add(target);
+            }
+            if (anchor.tagName().equals("a")) {
+                linkCounts.merge(target, 1, Integer::sum);
+            }
+        }
+        links.put(pagePath, new LinkedHashSet<>(linkCounts.keySet()));
+
+        final List<String> ranked = new ArrayList<>(linkCounts.keySet());
+        ranked.sort((left, right) -> {
+            final int local = linkCounts.get(right) - linkCounts.get(left);
+            if (local != 0) {
+                return local;
+            }
+            return previousInboundLinks.getOrDefault(right, 0) - previousInboundLinks.getOrDefault(left, 0);
+        });
+        final Set<String> prefetch = new LinkedHashSet<>(prevNext);
+        prefetch.addAll(ranked);
+
+        document.head().select("link[" + GENERATED_ATTRIBUTE + "]").remove();
+        final List<Element> hints = new ArrayList<>();
+        for (final Element resource : document.head().select("link[rel=stylesheet][href], script[src]")) {
+            final boolean script = resource.tagName().equals("script");
+            hints.add(createHint("preload", resource.attr(script ? "src" : "href"))
+                    .attr("as", script ? "script" : "style"));
+        }
+        final Set<String> fonts = new LinkedHashSet<>();
+        final Set<String> preloaded = new LinkedHashSet<>();
+        for (final Element resource : document.head().select("link[href]")) {
+            if ("preload".equals(resource.attr("rel"))) {
+                preloaded.add(resource.attr("href"));
+            } else if (isFont(resource.attr("href"))) {
+                fonts.add(resource.attr("href"));
+            } else if ("stylesheet".equals(resource.attr("rel"))) {
+                final String stylesheet = resolveLocal(pageUri, resource.attr("href"));
+                if (stylesheet != null) {
+                    for (final String font : stylesheetFonts.computeIfAbsent(stylesheet, this::readFonts)) {
+                        fonts.add(relativize(pagePath, font));
+                    }
+                }
+            }
+        }
+        fonts.removeAll(preloaded);
+        for (final String font : fonts) {
+            hints.add(createHint("preload", font).attr("as", "font").attr("crossorigin", ""));
+        }
+        int count = 0;
+        for (final String target : prefetch) {
+            if (count++ >= maxPrefetch) {
+                break;
+            }
+            hints.add(createHint("prefetch", hrefs.get(target)));
+        }
+        // hints go first (after the charset declaration), so that the browser sees them before anything it would
+        // block on
+        final Element charset = document.head().children().select("meta[charset]").first();
+        document.head().insertChildren(charset != null ? charset.siblingIndex() + 1 : 0, hints);
+    }
+
+    /**
+     * Records the internal links of a page whose hints are not refreshed
+     * @param linkedPages the pages it links to, as recorded by the previous build
+     */
+    public void keep(final String pagePath, final Set<String> linkedPages) {
+        links.put(pagePath, linkedPages);
+    }
+
+    /**
+     * @return the pages each page links to, as recorded by {@link #apply} and {@link #keep} so far
+     */
+    public Map<String, Set<String>> getLinks() {
+        return links;
+    }
+
+    /**
+     * @param links the pages each page links to
+     * @return the number of pages linking to each page
+     */
+    public static Map<String, Integer> countInboundLinks(final Map<String, Set<String>> links) {
+        final Map<String, Integer> counts = new HashMap<>();
+        for (final Set<String> linkedPages : links.values()) {
+            for (final String target : linkedPages) {
+                counts.merge(target, 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    private static Element createHint(final String rel, final String href) {
+        return new Element("link").attr("rel", rel).attr("href", href).attr(GENERATED_ATTRIBUTE, "");
+    }
+
+    /**
+     * @return the site-relative paths of the fonts that the {@code @font-face} rules of a stylesheet load first, or
+     * an empty list if the stylesheet cannot be read
+     */
+    private List<String> readFonts(final String stylesheet) {
+        final File file = new File(siteDir, stylesheet);
+        if (!file.isFile()) {
+            return Collections.emptyList();
+        }
+        final String css;
+        try {
+            css = CSS_COMMENT.matcher(InputReader.read(file)).replaceAll("");
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+        final URI stylesheetUri;
+        try {
+            stylesheetUri = new URI(null, null, stylesheet, null);
+        } catch (URISyntaxException e) {
+            return Collections.emptyList();
+        }
+        final List<String> fonts = new ArrayList<>();
+        final Matcher fontFace = CSS_FONT_FACE.matcher(css);
+        while (fontFace.find()) {
+            final Matcher src = CSS_FONT_SRC.matcher(fontFace.group(1));
+            if (!src.find()) {
+                continue;
+            }
+            final Matcher url = CSS_URL.matcher(src.group(1));
+            if (!url.find()) {
+                continue;
+            }
+            // the query is kept, since a preload only helps if its URL is the one the stylesheet requests
+            final String reference = stripFragment(url.group(2).trim());
+            final int queryStart = reference.indexOf('?');
+            final String path = resolveLocal(stylesheetUri, reference);
+            if (path != null && isFont(path)) {
+                final String font = queryStart >= 0 ? path + reference.substring(queryStart) : path;
+                if (!fonts.contains(font)) {
+                    fonts.add(font);
+                }
+            }
+        }
+        return fonts;
+    }
+
+    /**
+     * @return the site-relative path of an internal page link, or null for external, non-page and broken links
+     */
+    private static String resolve(final URI pageUri, final String href) {
+        final String path = resolveLocal(pageUri, href);
+        return path != null && isPage(path) ? path : null;
+    }
+
+    /**
+     * @return the site-relative path of a reference to a file within the site, or null for external, root-relative
+     * and broken references
+     */
+    private static String resolveLocal(final URI baseUri, final String href) {
+        if (href.isEmpty() || href.startsWith("#")) {
+            return null;
+        }
+        try {
+            final URI uri = new URI(href);
+            if (uri.isAbsolute() || uri.getRawAuthority() != null || uri.getRawPath() == null) {
+                return null;
+            }
+            final String path = baseUri.resolve(new URI(null, null, uri.getPath(), null)).normalize().getPath();
+            if (path.isEmpty() || path.startsWith("/") || path.startsWith("..")) {
+                return null;
+            }
+            return path;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param path a path relative to the site root, optionally followed by a query
+     * @return a reference from the page to the path
+     */
+    private static String relativize(final String pagePath, final String path) {
+        final int queryStart = path.indexOf('?');
+        final Path target = Paths.get(queryStart >= 0 ? path.substring(0, queryStart) : path);
+        final Path pageParent = Paths.get(pagePath).getParent();
+        final Path relative = pageParent == null ? target : pageParent.relativize(target);
+        return relative.toString().replace('\\', '/') + (queryStart >= 0 ? path.substring(queryStart) : "");
+    }
+
+    private static String stripFragment(final String href) {
+        final int index = href.indexOf('#');
+        return index >= 0 ? href.substring(0, index) : href;
+    }
+
+    private static boolean isPage(final String path) {
+        final String lowerPath = path.toLowerCase(Locale.ROOT);
+        return lowerPath.endsWith(".html") || lowerPath.endsWith(".htm");
+    }
+
+    private static boolean isFont(final String href) {
+        final String lowerHref = stripFragment(href).toLowerCase(Locale.ROOT);
+        for (final String extension : FONT_EXTENSIONS) {
+            if (lowerHref.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,24 @@
+package com.icfnext.documentation.plugin.html;
+
+import java.io.IOException;
+
+/**
+ * The view of the token stream available to a {@link StreamingHtmlTransformer}.
+ */
+public interface StreamingContext {
+
+    /**
+     * Passes a token on to the next transformer in the chain, or to the output
+     */
+    void emit(final HtmlToken token) throws IOException;
+
+    /**
+     * Looks ahead in the source token stream. Upcoming tokens are those read from the page, before any transformer
+     * has seen them.
+     * @param index the number of tokens to look past, 0 being the next token; limited to
+     *              {@link HtmlTokenizer#MAX_LOOKAHEAD}
+     * @return the upcoming token, or null if the page ends before it
+     */
+    HtmlToken peek(final int index) throws IOException;
+
+}
@@ -0,0 +1,27 @@
+package com.icfnext.documentation.plugin.html;
+
+import java.io.IOException;
+
+/**
+ * A transformer applied to the token stream of a page, without building a document tree. Each callback receives a
+ * token and passes it, or its replacement, on through {@link StreamingContext#emit(HtmlToken)}; tokens that are not
+ * emitted are dropped. Suitable for local rewrites such as adding classes or changing attributes. Comments and
+ * doctype declarations are passed through unchanged.
+ * <p>
+ * A single instance may be applied to several pages concurrently, so per-page state should not be kept in fields.
+ */
+public interface StreamingHtmlTransformer {
+
+    default void startTag(final HtmlToken.StartTag tag, final StreamingContext context) throws IOException {
+        context.emit(tag);
+    }
+
+    default void endTag(final HtmlToken.EndTag tag, final StreamingContext context) throws IOException {
+        context.emit(tag);
+    }
+
+    default void text(final HtmlToken.Text text, final StreamingContext context) throws IOException {
+        context.emit(text);
+    }
+
+}
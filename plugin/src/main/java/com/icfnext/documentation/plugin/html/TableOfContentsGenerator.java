@@ -0,0 +1,132 @@
+package com.icfnext.documentation.plugin.html;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+import java.util.Stack;
+
+/**
+ * Builds table of contents markup from the headings of a document. Instances hold only configuration, so a single
+ * generator can be shared between threads.
+ */
+public class TableOfContentsGenerator {
+
+    private static final String ID_PREFIX = "section-";
+
+    private final boolean excludeH1;
+    private final int levelsToInclude;
+    private final String targetSelector;
+    private final String title;
+    private final String titleTag;
+    private final String headingSelector;
+
+    public TableOfContentsGenerator(final boolean excludeH1, final int levelsToInclude, final String targetSelector,
+            final String title, final String titleTag) {
+        this.excludeH1 = excludeH1;
+        this.levelsToInclude = levelsToInclude;
+        this.targetSelector = targetSelector;
+        this.title = title;
+        this.titleTag = titleTag;
+        this.headingSelector = getCssSelector();
+    }
+
+    public String getTargetSelector() {
+        return targetSelector;
+    }
+
+    /**
+     * Inserts the table of contents into the first element matching the target selector
+     * @param document the document to update
+     * @return false if the target selector found no elements, in which case the document is left unchanged
+     */
+    public boolean addTableOfContents(final Document document) {
+        final Elements target = document.select(targetSelector);
+        if (target.isEmpty()) {
+            return false;
+        }
+        final Element targetElement = target.first();
+        if (title != null) {
+            targetElement.appendElement(titleTag).text(title);
+        }
+        final Stack<Element> tocListStack = new Stack<Element>();
+        final Element root = new Element("ol");
+        targetElement.appendChild(root);
+        tocListStack.push(root);
+        final Elements headingElements = document.select(headingSelector);
+        Element previousListItem = targetElement;
+        for (final Element headingElement : headingElements) {
+            final String text = headingElement.text();
+            final String tagName = headingElement.tagName();
+            final int level = elementTagToLevel(tagName);
+            int currentLevel = tocListStack.size();
+            if (level > currentLevel + 2) {
+                // levels can only go up by one at a time
+                throw new IllegalStateException("Illegal Heading: " + text);
+            }
+            while (currentLevel > level) {
+                // we are coming from a deeper level -- close out lists
+                tocListStack.pop();
+                currentLevel = tocListStack.size();
+            }
+            final Element tocItem = new Element("li");
+            final Element parent;
+            if (level > currentLevel) {
+                // increase level by nesting a new list below the previous item
+                parent = new Element("ol");
+                previousListItem.appendChild(parent);
+                tocListStack.push(parent);
+            } else {
+                // We're at the same level, so just add to the top-level list element
+                parent = tocListStack.peek();
+            }
+            parent.appendChild(tocItem);
+            previousListItem = tocItem;
+            // keep ids assigned upstream (e.g. to split documents), as other pages may link to them
+            final String id = headingElement.hasAttr("id") ? headingElement.id() : generateElementId(tocListStack);
+            headingElement.attr("id", id);
+            previousListItem.append("<a href='#" + id + "'>" + text + "</a>");
+        }
+        return true;
+    }
+
+    private String getCssSelector() {
+        final int start = excludeH1 ? 2 : 1;
+        final int end = start + levelsToInclude;
+        final StringBuilder out = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            out.append("h").append(i);
+            if (i < end - 1) {
+                out.append(", ");
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Converts a heading tag into a 1-indexed level, where 1 is the highest level shown in the ToC
+     * @param tag the element tag (h1-h6)
+     * @return the relative level
+     */
+    private int elementTagToLevel(final String tag) {
+        final String lowerTag = tag.toLowerCase();
+        if (!lowerTag.matches("h[0-6]")) {
+            throw new IllegalStateException("Illegal heading tag: " + tag);
+        }
+        final String levelString = tag.substring(1);
+        final int absoluteLevel = Integer.parseInt(levelString);
+        return absoluteLevel - (excludeH1 ? 1 : 0);
+    }
+
+    private static String generateElementId(final Stack<Element> tocStack) {
+        final StringBuilder out = new StringBuilder(ID_PREFIX);
+        for (int i = 0; i < tocStack.size(); i++) {
+            final Element element = tocStack.get(i);
+            out.append(element.childNodeSize());
+            if (i < tocStack.size() - 1) {
+                out.append(".");
+            }
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package com.icfnext.documentation.plugin.html;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an {@link HtmlTransformer} or {@link StreamingHtmlTransformer} as keeping no state between pages and being
+ * safe to use from several threads at once. A single instance of such a transformer is shared by every execution
+ * in the JVM, including concurrent module builds ({@code mvn -T}) and successive builds under a persistent Maven
+ * daemon; other transformers are instantiated for each execution.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface ThreadSafeTransformer {
+}
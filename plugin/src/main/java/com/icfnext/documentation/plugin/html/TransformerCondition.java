@@ -0,0 +1,144 @@
+package com.icfnext.documentation.plugin.html;
+
+import org.jsoup.nodes.Document;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * The conditions declared by a {@link ConditionalTransformer}, prepared for matching, together with counts of the
+ * pages the transformer was applied to and skipped. Transformers that declare no conditions match every page.
+ */
+public class TransformerCondition {
+
+    private final Object transformer;
+    private final Pattern pathPattern;
+    private final byte[][] markers;
+    private final String requiredSelector;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger skips = new AtomicInteger();
+
+    public TransformerCondition(final Object transformer) {
+        this.transformer = transformer;
+        if (transformer instanceof ConditionalTransformer) {
+            final ConditionalTransformer conditional = (ConditionalTransformer) transformer;
+            final String glob = conditional.getPathPattern();
+            pathPattern = glob != null ? Pattern.compile(toRegex(glob)) : null;
+            final String[] markerStrings = conditional.getMarkers();
+            if (markerStrings != null) {
+                markers = new byte[markerStrings.length][];
+                for (int i = 0; i < markerStrings.length; i++) {
+                    markers[i] = markerStrings[i].getBytes(StandardCharsets.UTF_8);
+                }
+            } else {
+                markers = null;
+            }
+            requiredSelector = conditional.getRequiredSelector();
+        } else {
+            pathPattern = null;
+            markers = null;
+            requiredSelector = null;
+        }
+    }
+
+    public Object getTransformer() {
+        return transformer;
+    }
+
+    public boolean hasMarkers() {
+        return markers != null;
+    }
+
+    public boolean hasRequiredSelector() {
+        return requiredSelector != null;
+    }
+
+    /**
+     * @param pagePath the path of the page relative to the base directory, using {@code /} as the separator
+     */
+    public boolean matchesPath(final String pagePath) {
+        return pathPattern == null || pathPattern.matcher(pagePath).matches();
+    }
+
+    /**
+     * @param content the raw bytes of the page, from the buffer's position to its limit; the buffer is not modified
+     */
+    public boolean matchesContent(final ByteBuffer content) {
+        if (markers == null) {
+            return true;
+        }
+        for (final byte[] marker : markers) {
+            if (indexOf(content, marker) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean matchesDocument(final Document document) {
+        return requiredSelector == null || document.selectFirst(requiredSelector) != null;
+    }
+
+    public void recordHit() {
+        hits.incrementAndGet();
+    }
+
+    public void recordSkip() {
+        skips.incrementAndGet();
+    }
+
+    public int getHitCount() {
+        return hits.get();
+    }
+
+    public int getSkipCount() {
+        return skips.get();
+    }
+
+    private static int indexOf(final ByteBuffer content, final byte[] marker) {
+        if (marker.length == 0) {
+            return content.position();
+        }
+        final byte first = marker[0];
+        final int last = content.limit() - marker.length;
+        outer:
+        for (int i = content.position(); i <= last; i++) {
+            if (content.get(i) != first) {
+                continue;
+            }
+            for (int j = 1; j < marker.length; j++) {
+                if (content.get(i + j) != marker[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String toRegex(final String glob) {
+        final StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                i++;
+                if (i + 1 < glob.length() && glob.charAt(i + 1) == '/') {
+                    // "**/" also matches no directories at all
+                    i++;
+                    regex.append("(?:.*/)?");
+                } else {
+                    regex.append(".*");
+                }
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return regex.toString();
+    }
+}
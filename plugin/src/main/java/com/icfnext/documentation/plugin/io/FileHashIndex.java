@@ -0,0 +1,111 @@
+package com.icfnext.documentation.plugin.io;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Content hashes of files, kept between builds. A file is only rehashed when its size or modification time has
+ * changed since the hash was recorded, so incremental builds do not read unchanged files.
+ * <p>
+ * Instances are safe to share between threads.
+ */
+public class FileHashIndex {
+
+    private final File indexFile;
+    private final Map<String, Entry> previous = new ConcurrentHashMap<>();
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private final AtomicInteger hashed = new AtomicInteger();
+    private final AtomicInteger reused = new AtomicInteger();
+
+    private FileHashIndex(final File indexFile) {
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * @param indexFile the file in which hashes are kept; it does not need to exist
+     */
+    public static FileHashIndex load(final File indexFile) throws IOException {
+        final FileHashIndex index = new FileHashIndex(indexFile);
+        if (indexFile.isFile()) {
+            for (final String line : Files.asCharSource(indexFile, StandardCharsets.UTF_8).readLines()) {
+                final String[] fields = line.split("\t", 4);
+                if (fields.length == 4) {
+                    index.previous.put(fields[3],
+                            new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]));
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param key a stable identifier for the file, such as its path relative to the site root
+     * @param file the file to hash
+     * @return the hex-encoded SHA-256 hash of the file content
+     */
+    public String hash(final String key, final File file) throws IOException {
+        final long size = file.length();
+        final long lastModified = file.lastModified();
+        final Entry known = previous.get(key);
+        final Entry entry;
+        if (known != null && known.size == size && known.lastModified == lastModified) {
+            entry = known;
+            reused.incrementAndGet();
+        } else {
+            entry = new Entry(size, lastModified, Files.asByteSource(file).hash(Hashing.sha256()).toString());
+            hashed.incrementAndGet();
+        }
+        current.put(key, entry);
+        return entry.hash;
+    }
+
+    /**
+     * @return the hash recorded for the key by the previous build, or null if it had none
+     */
+    public String getPreviousHash(final String key) {
+        final Entry entry = previous.get(key);
+        return entry != null ? entry.hash : null;
+    }
+
+    public int getHashedCount() {
+        return hashed.get();
+    }
+
+    public int getReusedCount() {
+        return reused.get();
+    }
+
+    /**
+     * Writes the hashes of the files seen by this build; files that were not hashed are dropped from the index
+     */
+    public void save(final OutputWriter outputWriter) throws IOException {
+        final StringBuilder out = new StringBuilder();
+        for (final Map.Entry<String, Entry> entry : new TreeMap<>(current).entrySet()) {
+            final Entry value = entry.getValue();
+            out.append(value.size).append('\t').append(value.lastModified).append('\t').append(value.hash)
+                    .append('\t').append(entry.getKey()).append('\n');
+        }
+        outputWriter.write(indexFile, out.toString());
+    }
+
+    private static class Entry {
+
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+
+        private Entry(final long size, final long lastModified, final String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.icfnext.documentation.plugin.io;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Partitions the files scanned by a goal into shards, so that a build can be spread over several processes or CI
+ * nodes. The partition is deterministic: every shard scans the same file set and computes the same assignment.
+ * Files are assigned largest first to the shard with the least total size, which balances shards by file size.
+ */
+public final class FileShards {
+
+    /**
+     * The plugin context key under which markdown-to-html records the shard of pages it generated, as
+     * {@code int[] {shardIndex, shardCount}}
+     */
+    public static final String PAGE_SHARD_CONTEXT_KEY = "documentation.pageShard";
+
+    private FileShards() {
+    }
+
+    /**
+     * @param file the file in which a goal keeps state between builds
+     * @return the file with the shard added to its name, so that shards building in the same directory keep separate
+     * state, or the file itself if the build is not sharded
+     */
+    public static File getStateFile(final File file, final int shardIndex, final int shardCount) {
+        if (shardCount <= 1) {
+            return file;
+        }
+        final String name = file.getName();
+        final int extension = name.lastIndexOf('.');
+        final String shard = "-shard-" + shardIndex + "-of-" + shardCount;
+        return new File(file.getParentFile(), extension > 0
+                ? name.substring(0, extension) + shard + name.substring(extension)
+                : name + shard);
+    }
+
+    /**
+     * @param pluginContext the plugin context of the goal; may be null
+     * @return the shard of pages generated by markdown-to-html earlier in the same build, as
+     * {@code {shardIndex, shardCount}}, or null if it was not sharded
+     */
+    public static int[] getPageShard(final Map<?, ?> pluginContext) {
+        return pluginContext != null ? (int[]) pluginContext.get(PAGE_SHARD_CONTEXT_KEY) : null;
+    }
+
+    /**
+     * Checks that a goal post-processing generated pages does not partition them again: when markdown-to-html was
+     * sharded, the goal only sees that shard's pages, and a second partition would leave some of them unprocessed.
+     * @param pluginContext the plugin context of the goal; may be null
+     * @param goal the name of the goal
+     * @param shardCount the number of shards the goal is configured with
+     * @return a description of the conflict, or null if there is none
+     */
+    public static String checkPageShard(final Map<?, ?> pluginContext, final String goal, final int shardCount) {
+        final int[] pageShard = getPageShard(pluginContext);
+        if (pageShard == null || shardCount <= 1) {
+            return null;
+        }
+        return "markdown-to-html generated shard " + pageShard[0] + " of " + pageShard[1] + " in this build, and "
+                + goal + " is sharded again with shardCount " + shardCount + ", so some of the pages will not be "
+                + "processed; set shardIndex and shardCount on only one of the goals";
+    }
+
+    /**
+     * @param baseDir the directory scanned by the goal
+     * @param fileRegex the regular expression file names must match
+     * @param recursive whether subdirectories are scanned
+     * @param excludedDir a directory below {@code baseDir} that the goal does not scan, or null
+     * @param shardIndex the 0-based index of the shard to select
+     * @param shardCount the total number of shards
+     * @return the files in the selected shard, or null if the build is not sharded (shardCount of 1)
+     * @throws IllegalArgumentException if the shard parameters are invalid
+     */
+    public static Set<File> select(final File baseDir, final String fileRegex, final boolean recursive,
+            final File excludedDir, final int shardIndex, final int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Parameter shardCount must be at least 1: " + shardCount);
+        } else if (shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Parameter shardIndex must be between 0 and " + (shardCount - 1)
+                    + ": " + shardIndex);
+        }
+        if (shardCount == 1) {
+            return null;
+        }
+        final List<ScannedFile> files = new ArrayList<>();
+        scan(baseDir, fileRegex, recursive, excludedDir != null ? excludedDir.getAbsoluteFile() : null, "", files);
+        files.sort(Comparator.comparingLong((ScannedFile file) -> file.size).reversed()
+                .thenComparing(file -> file.path));
+
+        final long[] loads = new long[shardCount];
+        final Set<File> selected = new HashSet<>();
+        for (final ScannedFile file : files) {
+            int target = 0;
+            for (int shard = 1; shard < shardCount; shard++) {
+                if (loads[shard] < loads[target]) {
+                    target = shard;
+                }
+            }
+            // count empty files as one byte, so that they are spread over shards too
+            loads[target] += Math.max(file.size, 1);
+            if (target == shardIndex) {
+                selected.add(file.file);
+            }
+        }
+        return selected;
+    }
+
+    private static void scan(final File directory, final String fileRegex, final boolean recursive,
+            final File excludedDir, final String relativePath, final List<ScannedFile> files) {
+        for (final File file : directory.listFiles()) {
+            if (file.isDirectory() && recursive && !file.getAbsoluteFile().equals(excludedDir)) {
+                scan(file, fileRegex, true, excludedDir, relativePath + file.getName() + "/", files);
+            } else if (file.isFile() && file.getName().matches(fileRegex)) {
+                files.add(new ScannedFile(file, relativePath + file.getName()));
+            }
+        }
+    }
+
+    private static class ScannedFile {
+
+        private final File file;
+        private final String path;
+        private final long size;
+
+        private ScannedFile(final File file, final String path) {
+            this.file = file;
+            this.path = path;
+            this.size = file.length();
+        }
+    }
+}
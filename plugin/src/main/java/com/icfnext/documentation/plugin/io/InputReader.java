@@ -0,0 +1,129 @@
+package com.icfnext.documentation.plugin.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+
+/**
+ * Reads UTF-8 text files with as little copying as possible. Files are read through a {@link FileChannel} into a
+ * buffer sized to the file and decoded in one pass; files above {@link #MAP_THRESHOLD} bytes are memory-mapped
+ * instead of copied. Buffers are not retained between calls, so nothing outlives a build in a long-lived JVM. A
+ * leading byte order mark is skipped, and malformed input is replaced rather than rejected.
+ */
+public final class InputReader {
+
+    /**
+     * Files above this size are memory-mapped. A mapping is only released when it is garbage collected, and on
+     * Windows a mapped file cannot be replaced or deleted until then, so files that are about to be rewritten are
+     * read with {@link #readForRewrite(File)} instead, which always copies.
+     */
+    public static final int MAP_THRESHOLD = 1024 * 1024;
+
+
+    private InputReader() {
+    }
+
+    public static String read(final File file) throws IOException {
+        return read(file, null);
+    }
+
+    /**
+     * Reads a file, unless the filter rejects its raw content. The filter is given a read-only view of the bytes
+     * following any byte order mark, so pages can be checked for markers before being decoded.
+     * @return the decoded content, or null if the filter returned false
+     */
+    public static String read(final File file, final Predicate<ByteBuffer> filter) throws IOException {
+        return read(file, filter, true);
+    }
+
+    /**
+     * Reads a file that the caller is about to replace. The file is never memory-mapped, so that it can be replaced
+     * on every platform as soon as this method returns.
+     */
+    public static String readForRewrite(final File file) throws IOException {
+        return read(file, null, false);
+    }
+
+    /**
+     * Reads a file that the caller is about to replace, unless the filter rejects its raw content; see
+     * {@link #read(File, Predicate)} and {@link #readForRewrite(File)}
+     * @return the decoded content, or null if the filter returned false
+     */
+    public static String readForRewrite(final File file, final Predicate<ByteBuffer> filter) throws IOException {
+        return read(file, filter, false);
+    }
+
+    private static String read(final File file, final Predicate<ByteBuffer> filter, final boolean map)
+            throws IOException {
+        try (final FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to read: " + file);
+            }
+            final ByteBuffer bytes;
+            if (size > MAP_THRESHOLD && map) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                bytes = ByteBuffer.allocate((int) size);
+                while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                    // keep reading until the buffer is full or the file ends
+                }
+                ((Buffer) bytes).flip();
+            }
+            skipByteOrderMark(bytes);
+            if (filter != null && !filter.test(bytes.asReadOnlyBuffer())) {
+                return null;
+            }
+            return decode(bytes);
+        }
+    }
+
+    /**
+     * Reads up to {@code limit} bytes from the start of a file, without decoding them
+     */
+    public static ByteBuffer readPrefix(final File file, final int limit) throws IOException {
+        try (final FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+            final ByteBuffer bytes = ByteBuffer.allocate((int) Math.min(limit, channel.size()));
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // keep reading until the buffer is full or the file ends
+            }
+            ((Buffer) bytes).flip();
+            return bytes;
+        }
+    }
+
+    private static void skipByteOrderMark(final ByteBuffer bytes) {
+        if (bytes.remaining() >= 3 && (bytes.get(bytes.position()) & 0xff) == 0xef
+                && (bytes.get(bytes.position() + 1) & 0xff) == 0xbb
+                && (bytes.get(bytes.position() + 2) & 0xff) == 0xbf) {
+            ((Buffer) bytes).position(bytes.position() + 3);
+        }
+    }
+
+    private static String decode(final ByteBuffer bytes) throws IOException {
+        // UTF-8 never decodes to more chars than it has bytes
+        final CharBuffer chars = CharBuffer.allocate(bytes.remaining());
+        final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CoderResult result = decoder.decode(bytes, chars, true);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        result = decoder.flush(chars);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        ((Buffer) chars).flip();
+        return chars.toString();
+    }
+}
@@ -0,0 +1,140 @@
+package com.icfnext.documentation.plugin.io;
+
+import com.google.common.base.Strings;
+import com.google.common.io.Files;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes output files only when their content changes. Unchanged files keep their modification time, so that
+ * downstream tools (deployment, resource filtering) only see pages that really changed. Changed files are written to
+ * a temporary file and moved into place, so readers never observe a partially written file.
+ * <p>
+ * Instances are safe to share between threads.
+ */
+public class OutputWriter {
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final Charset charset;
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+
+    public OutputWriter(final Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * @return true if the file was written, false if it already had the given content
+     */
+    public boolean write(final File file, final String content) throws IOException {
+        return write(file, content.getBytes(charset));
+    }
+
+    /**
+     * @return true if the file was written, false if it already had the given content
+     */
+    public boolean write(final File file, final byte[] content) throws IOException {
+        if (hasContent(file, content)) {
+            unchanged.incrementAndGet();
+            return false;
+        }
+        final File tempFile = createTempFile(file);
+        try {
+            Files.write(content, tempFile);
+            moveIntoPlace(tempFile, file);
+        } finally {
+            java.nio.file.Files.deleteIfExists(tempFile.toPath());
+        }
+        written.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return true if the destination was written, false if it already matched the source
+     */
+    public boolean copy(final File source, final File destination) throws IOException {
+        if (destination.isFile() && destination.length() == source.length()
+                && Files.asByteSource(source).contentEquals(Files.asByteSource(destination))) {
+            unchanged.incrementAndGet();
+            return false;
+        }
+        final File tempFile = createTempFile(destination);
+        try {
+            Files.copy(source, tempFile);
+            moveIntoPlace(tempFile, destination);
+        } finally {
+            java.nio.file.Files.deleteIfExists(tempFile.toPath());
+        }
+        written.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Creates a temporary file alongside the given target, for content that is streamed rather than held in memory.
+     * The file should be passed to {@link #commit(File, File)} once written.
+     */
+    public File createTempFile(final File target) throws IOException {
+        Files.createParentDirs(target);
+        // createTempFile requires a prefix of at least three characters
+        return File.createTempFile(Strings.padEnd(target.getName(), 3, '_'), TEMP_SUFFIX, target.getParentFile());
+    }
+
+    /**
+     * Moves a temporary file created by {@link #createTempFile(File)} over its target, unless the target already has
+     * the same content; the temporary file is removed either way.
+     * @return true if the target was written
+     */
+    public boolean commit(final File tempFile, final File target) throws IOException {
+        try {
+            if (target.isFile() && target.length() == tempFile.length()
+                    && Files.asByteSource(tempFile).contentEquals(Files.asByteSource(target))) {
+                unchanged.incrementAndGet();
+                return false;
+            }
+            moveIntoPlace(tempFile, target);
+            written.incrementAndGet();
+            return true;
+        } finally {
+            java.nio.file.Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public int getWrittenCount() {
+        return written.get();
+    }
+
+    public int getUnchangedCount() {
+        return unchanged.get();
+    }
+
+    public void logSummary(final Log log) {
+        log.info(written.get() + " file(s) written, " + unchanged.get() + " unchanged");
+    }
+
+    private static boolean hasContent(final File file, final byte[] content) throws IOException {
+        // the size check avoids reading files that have obviously changed
+        return file.isFile() && file.length() == content.length
+                && Arrays.equals(Files.toByteArray(file), content);
+    }
+
+    private static void moveIntoPlace(final File tempFile, final File target) throws IOException {
+        try {
+            java.nio.file.Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            java.nio.file.Files.move(tempFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
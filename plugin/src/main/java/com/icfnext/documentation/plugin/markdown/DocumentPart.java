@@ -0,0 +1,64 @@
+package com.icfnext.documentation.plugin.markdown;
+
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.util.ast.Node;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A contiguous run of top-level blocks from a markdown document, rendered as a page of its own.
+ */
+public class DocumentPart {
+
+    private final int index;
+    private final String fileName;
+    private final List<Node> nodes = new ArrayList<>();
+    private final List<Heading> headings = new ArrayList<>();
+    private final List<String> headingTitles = new ArrayList<>();
+    private String title;
+
+    DocumentPart(final int index, final String fileName) {
+        this.index = index;
+        this.fileName = fileName;
+    }
+
+    void addNode(final Node node) {
+        nodes.add(node);
+    }
+
+    void addHeading(final Heading heading, final String text) {
+        if (title == null) {
+            title = text;
+        }
+        headings.add(heading);
+        headingTitles.add(text);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    public List<Heading> getHeadings() {
+        return headings;
+    }
+
+    public List<String> getHeadingTitles() {
+        return headingTitles;
+    }
+
+    /**
+     * @return the text of the first heading in the part, or a generic "Part n" title if it has none
+     */
+    public String getTitle() {
+        return title != null ? title : "Part " + (index + 1);
+    }
+}
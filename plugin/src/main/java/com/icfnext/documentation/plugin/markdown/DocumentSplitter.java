@@ -0,0 +1,110 @@
+package com.icfnext.documentation.plugin.markdown;
+
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.ast.Text;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits a parsed markdown document into several pages. A new part is started at every top-level heading at or
+ * above the configured level, and at the next heading of any level once a part has grown past the size threshold.
+ * Heading anchors are assigned in the same pass, so that links between parts can be rewritten while rendering.
+ */
+public class DocumentSplitter {
+
+    private static final String HTML_EXTENSION = ".html";
+
+    private final int headingLevel;
+    private final int sizeThreshold;
+
+    /**
+     * @param headingLevel the heading level at which documents are split; 0 disables splitting by heading
+     * @param sizeThreshold the size, in characters of markdown source, after which a part is closed at the next
+     *                      heading; 0 disables splitting by size
+     */
+    public DocumentSplitter(final int headingLevel, final int sizeThreshold) {
+        this.headingLevel = headingLevel;
+        this.sizeThreshold = sizeThreshold;
+    }
+
+    public boolean isEnabled() {
+        return headingLevel > 0 || sizeThreshold > 0;
+    }
+
+    /**
+     * @param document the parsed markdown document
+     * @param baseName the output file name of the document, without extension
+     * @return the split document; a document with no split points has a single part
+     */
+    public SplitDocument split(final Document document, final String baseName) {
+        final List<DocumentPart> parts = new ArrayList<>();
+        final IdentityHashMap<Node, String> headingIds = new IdentityHashMap<>();
+        final Map<String, DocumentPart> anchorParts = new HashMap<>();
+        final Set<String> usedIds = new HashSet<>();
+
+        DocumentPart part = new DocumentPart(0, baseName + HTML_EXTENSION);
+        parts.add(part);
+        int partSize = 0;
+        for (Node node = document.getFirstChild(); node != null; node = node.getNext()) {
+            if (node instanceof Heading) {
+                final Heading heading = (Heading) node;
+                if (!part.getNodes().isEmpty() && isSplitPoint(heading, partSize)) {
+                    part = new DocumentPart(parts.size(), baseName + "-" + (parts.size() + 1) + HTML_EXTENSION);
+                    parts.add(part);
+                    partSize = 0;
+                }
+                final String text = textOf(heading);
+                final String id = uniqueId(slugify(text), usedIds);
+                headingIds.put(heading, id);
+                anchorParts.put(id, part);
+                part.addHeading(heading, text);
+            }
+            part.addNode(node);
+            partSize += node.getChars().length();
+        }
+        return new SplitDocument(parts, headingIds, anchorParts);
+    }
+
+    private boolean isSplitPoint(final Heading heading, final int partSize) {
+        if (headingLevel > 0 && heading.getLevel() <= headingLevel) {
+            return true;
+        }
+        return sizeThreshold > 0 && partSize >= sizeThreshold;
+    }
+
+    private static String textOf(final Node node) {
+        final StringBuilder out = new StringBuilder();
+        appendText(node, out);
+        return out.toString().trim();
+    }
+
+    private static void appendText(final Node node, final StringBuilder out) {
+        if (node instanceof Text) {
+            out.append(node.getChars());
+        }
+        for (Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+            appendText(child, out);
+        }
+    }
+
+    private static String slugify(final String text) {
+        final String slug = text.toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("^-+|-+$", "");
+        return slug.isEmpty() ? "section" : slug;
+    }
+
+    private static String uniqueId(final String id, final Set<String> usedIds) {
+        String candidate = id;
+        for (int i = 1; !usedIds.add(candidate); i++) {
+            candidate = id + "-" + i;
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,129 @@
+package com.icfnext.documentation.plugin.markdown;
+
+import com.google.common.io.Files;
+import com.icfnext.documentation.plugin.io.OutputWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The files each page was rendered from and to, kept between builds so that an incremental build can tell which
+ * pages are affected by a change to an included fragment. Paths are relative to the directories of the mojo
+ * producing the graph. The graph also records a fingerprint of the configuration the pages were rendered with;
+ * when it changes, no previous output should be trusted. Pages may be recorded and kept by several threads at once.
+ */
+public class IncludeGraph {
+
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String INCLUDE = "include";
+    private static final String OUTPUT = "output";
+
+    private final File graphFile;
+    private String previousFingerprint;
+    private String fingerprint;
+    private final Map<String, Entry> previous = new TreeMap<>();
+    private final Map<String, Entry> current = new ConcurrentSkipListMap<>();
+
+    private IncludeGraph(final File graphFile) {
+        this.graphFile = graphFile;
+    }
+
+    /**
+     * @param graphFile the file in which the graph is kept; it does not need to exist
+     */
+    public static IncludeGraph load(final File graphFile) throws IOException {
+        final IncludeGraph graph = new IncludeGraph(graphFile);
+        if (graphFile.isFile()) {
+            for (final String line : Files.asCharSource(graphFile, StandardCharsets.UTF_8).readLines()) {
+                final String[] fields = line.split("\t", 3);
+                if (fields.length == 2 && FINGERPRINT.equals(fields[0])) {
+                    graph.previousFingerprint = fields[1];
+                } else if (fields.length == 3 && INCLUDE.equals(fields[0])) {
+                    graph.previous.computeIfAbsent(fields[1], page -> new Entry()).fragments.add(fields[2]);
+                } else if (fields.length == 3 && OUTPUT.equals(fields[0])) {
+                    graph.previous.computeIfAbsent(fields[1], page -> new Entry()).outputs.add(fields[2]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Sets the configuration fingerprint of this build
+     * @return true if it is the same as that of the previous build
+     */
+    public boolean setFingerprint(final String fingerprint) {
+        this.fingerprint = fingerprint;
+        return fingerprint.equals(previousFingerprint);
+    }
+
+    /**
+     * @return whether the page was recorded by the previous build
+     */
+    public boolean hasPrevious(final String page) {
+        return previous.containsKey(page);
+    }
+
+    public List<String> getPreviousFragments(final String page) {
+        final Entry entry = previous.get(page);
+        return entry != null ? entry.fragments : Collections.<String>emptyList();
+    }
+
+    public List<String> getPreviousOutputs(final String page) {
+        final Entry entry = previous.get(page);
+        return entry != null ? entry.outputs : Collections.<String>emptyList();
+    }
+
+    /**
+     * Records the fragments and outputs of a page rendered by this build
+     */
+    public void record(final String page, final Collection<String> fragments, final Collection<String> outputs) {
+        final Entry entry = new Entry();
+        entry.fragments.addAll(fragments);
+        entry.outputs.addAll(outputs);
+        current.put(page, entry);
+    }
+
+    /**
+     * Carries the entry of a page that was not rendered again over from the previous build
+     */
+    public void keep(final String page) {
+        final Entry entry = previous.get(page);
+        if (entry != null) {
+            current.put(page, entry);
+        }
+    }
+
+    /**
+     * Writes the pages seen by this build; pages that were neither recorded nor kept are dropped
+     */
+    public void save(final OutputWriter outputWriter) throws IOException {
+        final StringBuilder out = new StringBuilder();
+        if (fingerprint != null) {
+            out.append(FINGERPRINT).append('\t').append(fingerprint).append('\n');
+        }
+        for (final Map.Entry<String, Entry> entry : current.entrySet()) {
+            for (final String fragment : entry.getValue().fragments) {
+                out.append(INCLUDE).append('\t').append(entry.getKey()).append('\t').append(fragment).append('\n');
+            }
+            for (final String output : entry.getValue().outputs) {
+                out.append(OUTPUT).append('\t').append(entry.getKey()).append('\t').append(output).append('\n');
+            }
+        }
+        outputWriter.write(graphFile, out.toString());
+    }
+
+    private static class Entry {
+
+        private final List<String> fragments = new ArrayList<>();
+        private final List<String> outputs = new ArrayList<>();
+    }
+}
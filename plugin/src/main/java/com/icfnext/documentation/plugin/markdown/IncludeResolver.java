@@ -0,0 +1,182 @@
+package com.icfnext.documentation.plugin.markdown;
+
+import com.google.common.hash.Hashing;
+import com.icfnext.documentation.plugin.cache.PluginCache;
+import com.icfnext.documentation.plugin.io.InputReader;
+import com.vladsch.flexmark.ast.Paragraph;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.Node;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves include directives in parsed markdown. A paragraph consisting only of {@code {{include path}}} is
+ * replaced, when rendering, by the content of the named markdown file. Paths are resolved against the fragment
+ * directory if one is configured, and otherwise against the directory of the including file. Included files may
+ * themselves include other files.
+ * <p>
+ * Each fragment is parsed once, and the parsed document is cached by content hash and shared by every page that
+ * includes it; fragment documents are only read, never modified, while rendering. Pages may be resolved by several
+ * threads at once.
+ */
+public class IncludeResolver {
+
+    private static final Pattern DIRECTIVE = Pattern.compile("\\{\\{include\\s+(.+?)\\s*}}");
+
+    private final MarkdownConverter converter;
+    private final File baseDir;
+    private final File fragmentDir;
+    private final Map<File, Fragment> fragments = new ConcurrentHashMap<>();
+
+    /**
+     * @param converter the converter used to parse fragments
+     * @param baseDir the directory against which paths are reported
+     * @param fragmentDir the directory against which include paths are resolved, or null to resolve them against
+     *                    the including file
+     */
+    public IncludeResolver(final MarkdownConverter converter, final File baseDir, final File fragmentDir) {
+        this.converter = converter;
+        this.baseDir = baseDir;
+        this.fragmentDir = fragmentDir;
+    }
+
+    /**
+     * @param file the markdown file the document was parsed from
+     * @param document the parsed page
+     * @return the includes of the page, and of the fragments it includes
+     * @throws IOException if an included file is missing or cannot be read, or includes form a cycle
+     */
+    public Includes resolve(final File file, final Document document) throws IOException {
+        final Includes includes = new Includes();
+        final Deque<File> stack = new ArrayDeque<>();
+        final File page = normalize(file);
+        stack.push(page);
+        resolve(page, findDirectives(page, document), stack, includes);
+        return includes;
+    }
+
+    private void resolve(final File file, final List<Directive> directives, final Deque<File> stack,
+            final Includes includes) throws IOException {
+        for (final Directive directive : directives) {
+            if (!directive.target.isFile()) {
+                throw new IOException("Included file not found: " + directive.path + " (included from "
+                        + getPath(file) + ")");
+            }
+            if (stack.contains(directive.target)) {
+                final StringBuilder cycle = new StringBuilder();
+                for (final File entry : (Iterable<File>) stack::descendingIterator) {
+                    cycle.append(getPath(entry)).append(" -> ");
+                }
+                throw new IOException("Include cycle: " + cycle.append(getPath(directive.target)));
+            }
+            final Fragment fragment = getFragment(directive.target);
+            includes.replacements.put(directive.paragraph, fragment.document);
+            includes.fragments.add(directive.target);
+            stack.push(directive.target);
+            resolve(directive.target, fragment.directives, stack, includes);
+            stack.pop();
+        }
+    }
+
+    private Fragment getFragment(final File file) throws IOException {
+        Fragment fragment = fragments.get(file);
+        if (fragment == null) {
+            final String markdown = InputReader.read(file);
+            final File resolutionDir = fragmentDir != null ? fragmentDir : file.getParentFile();
+            // nested directives are resolved relative to the fragment, so its location is part of the key
+            final String key = "markdown-fragment:" + Hashing.sha256().hashString(markdown, StandardCharsets.UTF_8)
+                    + "@" + resolutionDir.getAbsolutePath();
+            final Document document = PluginCache.get(key, Document.class, () -> converter.parse(markdown));
+            fragment = new Fragment(document, findDirectives(file, document));
+            fragments.put(file, fragment);
+        }
+        return fragment;
+    }
+
+    private List<Directive> findDirectives(final File file, final Document document) {
+        final List<Directive> directives = new ArrayList<>();
+        for (final Node node : document.getDescendants()) {
+            if (node instanceof Paragraph) {
+                final Matcher matcher = DIRECTIVE.matcher(node.getChars().toString().trim());
+                if (matcher.matches()) {
+                    final String path = matcher.group(1);
+                    final File target = new File(fragmentDir != null ? fragmentDir : file.getParentFile(), path);
+                    directives.add(new Directive((Paragraph) node, path, normalize(target)));
+                }
+            }
+        }
+        return directives;
+    }
+
+    /**
+     * Files are compared by path to detect cycles, so {@code ..} segments have to be resolved
+     */
+    private static File normalize(final File file) {
+        return file.toPath().toAbsolutePath().normalize().toFile();
+    }
+
+    private String getPath(final File file) {
+        return baseDir.getAbsoluteFile().toPath().relativize(file.getAbsoluteFile().toPath()).toString()
+                .replace('\\', '/');
+    }
+
+    /**
+     * The includes of one page
+     */
+    public static class Includes {
+
+        private final Map<Node, Document> replacements = new HashMap<>();
+        private final Set<File> fragments = new LinkedHashSet<>();
+
+        /**
+         * @return the fragment document to render in place of each include directive
+         */
+        public Map<Node, Document> getReplacements() {
+            return replacements;
+        }
+
+        /**
+         * @return every file included by the page, directly or through other fragments
+         */
+        public Set<File> getFragments() {
+            return fragments;
+        }
+    }
+
+    private static class Fragment {
+
+        private final Document document;
+        private final List<Directive> directives;
+
+        private Fragment(final Document document, final List<Directive> directives) {
+            this.document = document;
+            this.directives = directives;
+        }
+    }
+
+    private static class Directive {
+
+        private final Paragraph paragraph;
+        private final String path;
+        private final File target;
+
+        private Directive(final Paragraph paragraph, final String path, final File target) {
+            this.paragraph = paragraph;
+            this.path = path;
+            this.target = target;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.icfnext.documentation.plugin.markdown;
+
+import com.google.common.html.HtmlEscapers;
+import com.icfnext.documentation.plugin.cache.PluginCache;
+import com.icfnext.documentation.plugin.html.HtmlRenderer;
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import com.vladsch.flexmark.util.ast.KeepType;
+import com.vladsch.flexmark.util.ast.Node;
+import com.vladsch.flexmark.util.data.MutableDataHolder;
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Converts markdown source into the HTML body content used by the generated pages.
+ * The flexmark parser is built once per converter and is safe to share between threads.
+ */
+public class MarkdownConverter {
+
+    private final Log log;
+    private final boolean fixMarkdownLinks;
+    private final Parser parser;
+    private final HtmlRenderer htmlRenderer;
+
+    private static final String PARSER_KEY = "markdown-parser:tables";
+
+    public MarkdownConverter(final Log log, final boolean fixMarkdownLinks) {
+        this.log = log;
+        this.fixMarkdownLinks = fixMarkdownLinks;
+        this.parser = PluginCache.get(PARSER_KEY, Parser.class, MarkdownConverter::createParser);
+        this.htmlRenderer = new HtmlRenderer(log, fixMarkdownLinks);
+    }
+
+    private static Parser createParser() {
+        final MutableDataHolder options = new MutableDataSet()
+                .set(Parser.REFERENCES_KEEP, KeepType.LAST)
+                .set(Parser.HTML_BLOCK_PARSER, false)
+                .set(Parser.HTML_BLOCK_DEEP_PARSER, false)
+                .set(TablesExtension.COLUMN_SPANS, false)
+                .set(TablesExtension.APPEND_MISSING_COLUMNS, true)
+                .set(TablesExtension.DISCARD_EXTRA_COLUMNS, true)
+                .set(TablesExtension.HEADER_SEPARATOR_COLUMN_MATCH, true)
+                .set(Parser.EXTENSIONS, Arrays.asList(TablesExtension.create()));
+        return Parser.builder(options).build();
+    }
+
+    public Document parse(final String markdown) {
+        return parser.parse(markdown);
+    }
+
+    public String render(final Document document) {
+        return htmlRenderer.render(document);
+    }
+
+    /**
+     * @param document the parsed page
+     * @param inclusions the fragment documents to render in place of include directives; see {@link IncludeResolver}
+     */
+    public String render(final Document document, final Map<Node, Document> inclusions) {
+        if (inclusions.isEmpty()) {
+            return render(document);
+        }
+        return new HtmlRenderer(log, fixMarkdownLinks, Collections.<Node, String>emptyMap(),
+                Collections.<String, String>emptyMap(), inclusions).render(document);
+    }
+
+    public String convert(final String markdown) {
+        return render(parse(markdown));
+    }
+
+    /**
+     * Renders one part of a split document, preceded by a list of all parts and followed by links to the previous
+     * and next parts. Links to headings in other parts are rewritten to point at the page containing them.
+     * <p>
+     * The first part keeps the file name of the unsplit page, so links from other pages to its headings still lead
+     * to it. It therefore starts with a script that redirects {@code page.html#anchor} to the part containing the
+     * anchor; without JavaScript, such links open the first part.
+     * @param document the split document
+     * @param part the part to render
+     * @return the HTML body content of the part
+     */
+    public String renderPart(final SplitDocument document, final DocumentPart part) {
+        return renderPart(document, part, Collections.<Node, Document>emptyMap());
+    }
+
+    /**
+     * @see #renderPart(SplitDocument, DocumentPart)
+     * @param inclusions the fragment documents to render in place of include directives; see {@link IncludeResolver}
+     */
+    public String renderPart(final SplitDocument document, final DocumentPart part,
+            final Map<Node, Document> inclusions) {
+        final HtmlRenderer partRenderer = new HtmlRenderer(log, fixMarkdownLinks, document.getHeadingIds(),
+                document.getAnchorRewrites(part), inclusions);
+        final List<DocumentPart> parts = document.getParts();
+        final StringBuilder out = new StringBuilder("<main>");
+        if (part.getIndex() == 0) {
+            appendAnchorRedirect(out, new TreeMap<>(document.getAnchorRewrites(part)));
+        }
+        out.append("<div class='document-parts'><ol>");
+        for (final DocumentPart entry : parts) {
+            out.append(entry == part ? "<li class='current'>" : "<li>");
+            appendLink(out, entry.getFileName(), entry.getTitle(), null);
+            if (entry == part) {
+                out.append("<ol>");
+                final List<Heading> headings = part.getHeadings();
+                for (int i = 0; i < headings.size(); i++) {
+                    out.append("<li>");
+                    final String id = document.getHeadingIds().get(headings.get(i));
+                    appendLink(out, "#" + id, part.getHeadingTitles().get(i), null);
+                    out.append("</li>");
+                }
+                out.append("</ol>");
+            }
+            out.append("</li>");
+        }
+        out.append("</ol></div>");
+        for (final Node node : part.getNodes()) {
+            partRenderer.render(node, out);
+        }
+        out.append("<div class='document-pagination'>");
+        final int index = part.getIndex();
+        if (index > 0) {
+            final DocumentPart previous = parts.get(index - 1);
+            appendLink(out, previous.getFileName(), previous.getTitle(), "prev");
+        }
+        if (index < parts.size() - 1) {
+            final DocumentPart next = parts.get(index + 1);
+            appendLink(out, next.getFileName(), next.getTitle(), "next");
+        }
+        out.append("</div></main>");
+        return out.toString();
+    }
+
+    private static void appendAnchorRedirect(final StringBuilder out, final Map<String, String> anchorRewrites) {
+        if (anchorRewrites.isEmpty()) {
+            return;
+        }
+        out.append("<script class='document-part-redirect'>(function(){var parts={");
+        String separator = "";
+        for (final Map.Entry<String, String> rewrite : anchorRewrites.entrySet()) {
+            out.append(separator);
+            appendScriptString(out, rewrite.getKey());
+            out.append(":");
+            appendScriptString(out, rewrite.getValue());
+            separator = ",";
+        }
+        out.append("};var part=parts[location.hash];if(part){location.replace(part);}})();</script>");
+    }
+
+    private static void appendScriptString(final StringBuilder out, final String value) {
+        out.append('"');
+        for (final char c : value.toCharArray()) {
+            if (c == '"' || c == '\\' || c == '<' || c == '>' || c == '&' || c < 0x20 || c > 0x7e) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static void appendLink(final StringBuilder out, final String href, final String text, final String rel) {
+        out.append("<a href='").append(href).append("'");
+        if (rel != null) {
+            out.append(" rel='").append(rel).append("'");
+        }
+        out.append(">").append(HtmlEscapers.htmlEscaper().escape(text)).append("</a>");
+    }
+}
@@ -0,0 +1,191 @@
+package com.icfnext.documentation.plugin.markdown;
+
+import com.google.common.io.Files;
+import com.icfnext.documentation.plugin.io.FileHashIndex;
+import com.icfnext.documentation.plugin.io.InputReader;
+import com.icfnext.documentation.plugin.io.OutputWriter;
+import com.vladsch.flexmark.util.ast.Document;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders the markdown pages of one source tree into html pages: include directives are resolved, documents are
+ * split into parts, each page is wrapped in the header and footer, and only changed files are written. When given
+ * the state of the previous build, pages whose source, included fragments and configuration are unchanged are not
+ * rendered again. This is the rendering shared by the markdown-to-html and aggregate goals; a renderer may be used
+ * by several threads at once.
+ */
+public class MarkdownRenderer {
+
+    private static final PageProcessor NO_PROCESSING = (source, html) -> html;
+
+    private final Log log;
+    private final OutputWriter outputWriter;
+    private final MarkdownConverter converter;
+    private final DocumentSplitter splitter;
+    private final IncludeResolver includeResolver;
+    private final File baseDir;
+    private final File outputDir;
+    private final String headerHtml;
+    private final String footerHtml;
+    private PageProcessor pageProcessor = NO_PROCESSING;
+    private IncludeGraph includeGraph;
+    private FileHashIndex hashIndex;
+    private boolean configurationUnchanged;
+    private final AtomicInteger upToDateCount = new AtomicInteger();
+
+    /**
+     * @param baseDir the directory containing the markdown pages
+     * @param fragmentDir the directory against which include directives are resolved, or null to resolve them
+     *                    against the including file
+     * @param outputDir the directory html pages are written to, mirroring the layout of {@code baseDir}
+     * @param headerHtml the html written before each page, in which {@code ${site-root}} is replaced by the path
+     *                   to the site root
+     * @param footerHtml the html written after each page, as the header
+     */
+    public MarkdownRenderer(final Log log, final OutputWriter outputWriter, final MarkdownConverter converter,
+            final DocumentSplitter splitter, final File baseDir, final File fragmentDir, final File outputDir,
+            final String headerHtml, final String footerHtml) {
+        this.log = log;
+        this.outputWriter = outputWriter;
+        this.converter = converter;
+        this.splitter = splitter;
+        this.includeResolver = new IncludeResolver(converter, baseDir, fragmentDir);
+        this.baseDir = baseDir;
+        this.outputDir = outputDir;
+        this.headerHtml = headerHtml;
+        this.footerHtml = footerHtml;
+    }
+
+    /**
+     * Sets a processor applied to the complete html of each page, including the header and footer, before it is
+     * written
+     */
+    public void setPageProcessor(final PageProcessor pageProcessor) {
+        this.pageProcessor = pageProcessor;
+    }
+
+    /**
+     * Skips pages that are up to date with the previous build, and records the includes and outputs of the pages
+     * that are rendered
+     * @param fingerprint describes all configuration the rendered pages depend on
+     */
+    public void setIncrementalState(final IncludeGraph includeGraph, final FileHashIndex hashIndex,
+            final String fingerprint) {
+        this.includeGraph = includeGraph;
+        this.hashIndex = hashIndex;
+        this.configurationUnchanged = includeGraph.setFingerprint(fingerprint);
+    }
+
+    /**
+     * @param file a markdown page in the base directory
+     * @param relativePath the path from the page's directory to the site root, e.g. {@code ../}
+     * @return false if the page was up to date and not rendered
+     * @throws IOException if the page, or an included fragment, cannot be read, or the page cannot be written
+     */
+    public boolean render(final File file, final String relativePath) throws IOException {
+        final String page = getPath(baseDir, file);
+        if (includeGraph != null && isUpToDate(page, file)) {
+            includeGraph.keep(page);
+            upToDateCount.incrementAndGet();
+            return false;
+        }
+        final String markdown = InputReader.read(file);
+        final File htmlFile = new File(outputDir, page.replaceAll("\\.[a-zA-Z0-9]+$", ".html"));
+        final String correctedHeader = headerHtml.replaceAll("\\$\\{site-root}", relativePath);
+        final String correctedFooter = footerHtml.replaceAll("\\$\\{site-root}", relativePath);
+        final Document document = converter.parse(markdown);
+        final IncludeResolver.Includes includes = includeResolver.resolve(file, document);
+        final List<String> outputs = new ArrayList<>();
+        if (splitter.isEnabled()) {
+            final String baseName = Files.getNameWithoutExtension(htmlFile.getName());
+            final SplitDocument splitDocument = splitter.split(document, baseName);
+            if (splitDocument.isSplit()) {
+                log.info("Splitting " + file.getName() + " into " + splitDocument.getParts().size() + " pages");
+                for (final DocumentPart part : splitDocument.getParts()) {
+                    final File partFile = new File(htmlFile.getParentFile(), part.getFileName());
+                    final String html = converter.renderPart(splitDocument, part, includes.getReplacements());
+                    write(file, partFile, correctedHeader + html + correctedFooter);
+                    outputs.add(getPath(outputDir, partFile));
+                }
+                recordIncludes(page, includes, outputs);
+                return true;
+            }
+        }
+        final String html = converter.render(document, includes.getReplacements());
+        write(file, htmlFile, correctedHeader + html + correctedFooter);
+        outputs.add(getPath(outputDir, htmlFile));
+        recordIncludes(page, includes, outputs);
+        return true;
+    }
+
+    public int getUpToDateCount() {
+        return upToDateCount.get();
+    }
+
+    private void write(final File source, final File htmlFile, final String html) throws IOException {
+        outputWriter.write(htmlFile, pageProcessor.process(source, html));
+    }
+
+    /**
+     * @return true if the page, and every fragment it included, have the same content as when its outputs were
+     *         rendered by the previous build, with the same configuration, and the outputs still exist
+     */
+    private boolean isUpToDate(final String page, final File file) throws IOException {
+        final String hash = hashIndex.hash(page, file);
+        if (!configurationUnchanged || !includeGraph.hasPrevious(page)
+                || !hash.equals(hashIndex.getPreviousHash(page))) {
+            return false;
+        }
+        for (final String fragment : includeGraph.getPreviousFragments(page)) {
+            final File fragmentFile = new File(baseDir, fragment);
+            if (!fragmentFile.isFile()
+                    || !hashIndex.hash(fragment, fragmentFile).equals(hashIndex.getPreviousHash(fragment))) {
+                return false;
+            }
+        }
+        for (final String output : includeGraph.getPreviousOutputs(page)) {
+            if (!new File(outputDir, output).isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void recordIncludes(final String page, final IncludeResolver.Includes includes,
+            final List<String> outputs) throws IOException {
+        if (includeGraph == null) {
+            return;
+        }
+        final List<String> fragments = new ArrayList<>();
+        for (final File fragmentFile : includes.getFragments()) {
+            final String fragment = getPath(baseDir, fragmentFile);
+            hashIndex.hash(fragment, fragmentFile);
+            fragments.add(fragment);
+        }
+        includeGraph.record(page, fragments, outputs);
+    }
+
+    private static String getPath(final File directory, final File file) {
+        return directory.getAbsoluteFile().toPath().relativize(file.getAbsoluteFile().toPath()).toString()
+                .replace('\\', '/');
+    }
+
+    /**
+     * Post-processes the html of a page before it is written
+     */
+    public interface PageProcessor {
+
+        /**
+         * @param source the markdown file the page was rendered from
+         * @param html the complete html of the page
+         * @return the html to write
+         */
+        String process(File source, String html) throws IOException;
+    }
+}
@@ -0,0 +1,53 @@
+package com.icfnext.documentation.plugin.markdown;
+
+import com.vladsch.flexmark.util.ast.Node;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of splitting a markdown document: its parts, the anchor generated for each heading, and the part in
+ * which each anchor ended up.
+ */
+public class SplitDocument {
+
+    private final List<DocumentPart> parts;
+    private final IdentityHashMap<Node, String> headingIds;
+    private final Map<String, DocumentPart> anchorParts;
+
+    SplitDocument(final List<DocumentPart> parts, final IdentityHashMap<Node, String> headingIds,
+            final Map<String, DocumentPart> anchorParts) {
+        this.parts = parts;
+        this.headingIds = headingIds;
+        this.anchorParts = anchorParts;
+    }
+
+    public List<DocumentPart> getParts() {
+        return parts;
+    }
+
+    public boolean isSplit() {
+        return parts.size() > 1;
+    }
+
+    public Map<Node, String> getHeadingIds() {
+        return headingIds;
+    }
+
+    /**
+     * @param current the part being rendered
+     * @return replacement URLs for intra-document links ({@code #anchor}) whose target is in another part
+     */
+    public Map<String, String> getAnchorRewrites(final DocumentPart current) {
+        final Map<String, String> rewrites = new HashMap<>();
+        for (final Map.Entry<String, DocumentPart> entry : anchorParts.entrySet()) {
+            final DocumentPart target = entry.getValue();
+            if (target != current) {
+                rewrites.put("#" + entry.getKey(), target.getFileName() + "#" + entry.getKey());
+            }
+        }
+        return rewrites;
+    }
+}
@@ -0,0 +1,209 @@
+package com.icfnext.documentation.plugin.report;
+
+import com.icfnext.documentation.plugin.io.InputReader;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Size and structure measurements of a generated page: its HTML size, the bytes of data URIs inlined into it (in
+ * URL attributes and CSS), the resources it references, including preloaded ones, and their combined size, and the
+ * size and depth of its element tree. Referenced resources are resolved against the site directory; resources outside
+ * it, such as those on other hosts, are counted but do not contribute to the asset size.
+ */
+public class PageMetrics {
+
+    private static final Pattern CSS_DATA_URL = Pattern.compile("url\\(\\s*['\"]?(data:[^'\")]*)");
+    private static final List<String> RESOURCE_LINK_TYPES =
+            Arrays.asList("stylesheet", "icon", "apple-touch-icon", "manifest", "preload", "modulepreload");
+    private static final List<String> URL_ATTRIBUTES = Arrays.asList("src", "href", "poster");
+    private static final String RESOURCE_ELEMENTS = "img[src], script[src], source[src], video[src], audio[src], "
+            + "iframe[src], embed[src], video[poster], link[href]";
+
+    private final String path;
+    private final long htmlBytes;
+    private final long inlineDataBytes;
+    private final Set<String> resources;
+    private final Set<File> assets;
+    private final long assetBytes;
+    private final int domNodes;
+    private final int domDepth;
+
+    private PageMetrics(final String path, final long htmlBytes, final long inlineDataBytes,
+            final Set<String> resources, final Set<File> assets, final long assetBytes, final int domNodes,
+            final int domDepth) {
+        this.path = path;
+        this.htmlBytes = htmlBytes;
+        this.inlineDataBytes = inlineDataBytes;
+        this.resources = resources;
+        this.assets = assets;
+        this.assetBytes = assetBytes;
+        this.domNodes = domNodes;
+        this.domDepth = domDepth;
+    }
+
+    /**
+     * @param file the page
+     * @param path the path of the page relative to the site directory, using {@code /}
+     * @param siteDir the root directory of the site
+     * @param assetSizes a cache of asset sizes, shared between pages; it must be safe for concurrent use
+     */
+    public static PageMetrics measure(final File file, final String path, final File siteDir,
+            final Map<File, Long> assetSizes) throws IOException {
+        final String html = InputReader.read(file);
+        final Document document = Jsoup.parse(html);
+
+        final long[] inlineDataBytes = new long[1];
+        final int[] domNodes = new int[1];
+        final int[] domDepth = new int[1];
+        NodeTraversor.traverse(new NodeVisitor() {
+            @Override
+            public void head(final Node node, final int depth) {
+                if (!(node instanceof Element)) {
+                    return;
+                }
+                final Element element = (Element) node;
+                domNodes[0]++;
+                domDepth[0] = Math.max(domDepth[0], depth);
+                for (final Attribute attribute : element.attributes()) {
+                    final String value = attribute.getValue();
+                    if (URL_ATTRIBUTES.contains(attribute.getKey())) {
+                        if (value.regionMatches(true, 0, "data:", 0, 5)) {
+                            inlineDataBytes[0] += value.length();
+                        }
+                    } else if (attribute.getKey().equals("style")) {
+                        inlineDataBytes[0] += countCssDataBytes(value);
+                    }
+                }
+                if (element.tagName().equals("style")) {
+                    inlineDataBytes[0] += countCssDataBytes(element.data());
+                }
+            }
+
+            @Override
+            public void tail(final Node node, final int depth) {
+            }
+        }, document);
+
+        final Set<String> resources = new LinkedHashSet<>();
+        for (final Element element : document.select(RESOURCE_ELEMENTS)) {
+            if (element.tagName().equals("link") && !isResourceLink(element)) {
+                continue;
+            }
+            final String url = element.hasAttr("src") ? element.attr("src")
+                    : element.hasAttr("poster") ? element.attr("poster") : element.attr("href");
+            if (!url.isEmpty() && !url.regionMatches(true, 0, "data:", 0, 5)) {
+                resources.add(url);
+            }
+        }
+        final Set<File> assets = new LinkedHashSet<>();
+        long assetBytes = 0;
+        for (final String resource : resources) {
+            final File asset = resolve(resource, path, siteDir);
+            if (asset != null && assets.add(asset)) {
+                final long size = assetSizes.computeIfAbsent(asset, f -> f.isFile() ? f.length() : -1L);
+                if (size >= 0) {
+                    assetBytes += size;
+                } else {
+                    assets.remove(asset);
+                }
+            }
+        }
+        return new PageMetrics(path, file.length(), inlineDataBytes[0], resources, assets, assetBytes, domNodes[0],
+                domDepth[0]);
+    }
+
+    private static boolean isResourceLink(final Element link) {
+        for (final String type : link.attr("rel").toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (RESOURCE_LINK_TYPES.contains(type)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long countCssDataBytes(final String css) {
+        long bytes = 0;
+        final Matcher matcher = CSS_DATA_URL.matcher(css);
+        while (matcher.find()) {
+            bytes += matcher.group(1).length();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the local file a reference points to, or null if it points outside the site
+     */
+    private static File resolve(final String url, final String pagePath, final File siteDir) {
+        try {
+            final URI pageUri = new URI(null, null, "/" + pagePath, null);
+            final URI resolved = pageUri.resolve(new URI(url.replace(" ", "%20")));
+            if (resolved.getScheme() != null || resolved.getAuthority() != null || resolved.getPath() == null
+                    || resolved.getPath().startsWith("/..")) {
+                return null;
+            }
+            return new File(siteDir, resolved.getPath().substring(1));
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public long getHtmlBytes() {
+        return htmlBytes;
+    }
+
+    public long getInlineDataBytes() {
+        return inlineDataBytes;
+    }
+
+    public int getResourceCount() {
+        return resources.size();
+    }
+
+    /**
+     * @return the local files referenced by the page
+     */
+    public Set<File> getAssets() {
+        return assets;
+    }
+
+    public long getAssetBytes() {
+        return assetBytes;
+    }
+
+    /**
+     * @return the HTML size plus the size of the local files the page references
+     */
+    public long getTotalBytes() {
+        return htmlBytes + assetBytes;
+    }
+
+    public int getDomNodes() {
+        return domNodes;
+    }
+
+    public int getDomDepth() {
+        return domDepth;
+    }
+}
@@ -0,0 +1,169 @@
+package com.icfnext.documentation.plugin.report;
+
+import com.google.common.html.HtmlEscapers;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The measurements of every page of a site, with site-wide totals, rendered as JSON or as a self-contained HTML
+ * page whose table can be sorted by any column. Pages are listed heaviest first.
+ */
+public class PageWeightReport {
+
+    private static final String[] COLUMNS = {"Page", "HTML bytes", "Inline data bytes", "Resources",
+            "Asset bytes", "Total bytes", "DOM nodes", "DOM depth", "Over budget"};
+
+    private final List<PageMetrics> pages;
+    private final Map<String, List<String>> violations;
+    private final long siteHtmlBytes;
+    private final long siteInlineDataBytes;
+    private final long siteAssetBytes;
+
+    /**
+     * @param pages the measured pages
+     * @param violations the budgets exceeded by each page, keyed by page path
+     * @param assetSizes the sizes of the assets referenced by the pages
+     */
+    public PageWeightReport(final List<PageMetrics> pages, final Map<String, List<String>> violations,
+            final Map<File, Long> assetSizes) {
+        this.pages = new ArrayList<>(pages);
+        this.pages.sort(Comparator.comparingLong(PageMetrics::getTotalBytes).reversed()
+                .thenComparing(PageMetrics::getPath));
+        this.violations = violations;
+        long html = 0;
+        long inlineData = 0;
+        final Set<File> assets = new HashSet<>();
+        for (final PageMetrics page : pages) {
+            html += page.getHtmlBytes();
+            inlineData += page.getInlineDataBytes();
+            assets.addAll(page.getAssets());
+        }
+        long assetBytes = 0;
+        for (final File asset : assets) {
+            assetBytes += assetSizes.get(asset);
+        }
+        this.siteHtmlBytes = html;
+        this.siteInlineDataBytes = inlineData;
+        this.siteAssetBytes = assetBytes;
+    }
+
+    public long getSiteHtmlBytes() {
+        return siteHtmlBytes;
+    }
+
+    public long getSiteInlineDataBytes() {
+        return siteInlineDataBytes;
+    }
+
+    /**
+     * @return the size of all pages, plus that of every asset referenced by at least one page
+     */
+    public long getSiteTotalBytes() {
+        return siteHtmlBytes + siteAssetBytes;
+    }
+
+    public String toJson() {
+        final StringBuilder out = new StringBuilder("{\"summary\":{");
+        out.append("\"pages\":").append(pages.size())
+                .append(",\"htmlBytes\":").append(siteHtmlBytes)
+                .append(",\"inlineDataBytes\":").append(siteInlineDataBytes)
+                .append(",\"assetBytes\":").append(siteAssetBytes)
+                .append(",\"totalBytes\":").append(getSiteTotalBytes())
+                .append("},\"pages\":[");
+        boolean first = true;
+        for (final PageMetrics page : pages) {
+            out.append(first ? "\n" : ",\n");
+            first = false;
+            out.append("{\"path\":\"").append(escapeJson(page.getPath())).append('"')
+                    .append(",\"htmlBytes\":").append(page.getHtmlBytes())
+                    .append(",\"inlineDataBytes\":").append(page.getInlineDataBytes())
+                    .append(",\"resources\":").append(page.getResourceCount())
+                    .append(",\"assetBytes\":").append(page.getAssetBytes())
+                    .append(",\"totalBytes\":").append(page.getTotalBytes())
+                    .append(",\"domNodes\":").append(page.getDomNodes())
+                    .append(",\"domDepth\":").append(page.getDomDepth())
+                    .append(",\"violations\":[");
+            final List<String> pageViolations = getViolations(page);
+            for (int i = 0; i < pageViolations.size(); i++) {
+                out.append(i > 0 ? "," : "").append('"').append(escapeJson(pageViolations.get(i))).append('"');
+            }
+            out.append("]}");
+        }
+        return out.append("\n]}\n").toString();
+    }
+
+    public String toHtml() {
+        final StringBuilder out = new StringBuilder("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n")
+                .append("<title>Page weight report</title>\n<style>")
+                .append("body{font-family:sans-serif}table{border-collapse:collapse}")
+                .append("th,td{padding:2px 8px;border-bottom:1px solid #ddd;text-align:right}")
+                .append("th{cursor:pointer;background:#f4f4f4}td:first-child{text-align:left}")
+                .append("tr.over td{background:#fde2e2}</style>\n</head>\n<body>\n<h1>Page weight report</h1>\n")
+                .append("<p>").append(pages.size()).append(" pages, ").append(siteHtmlBytes).append(" HTML bytes (")
+                .append(siteInlineDataBytes).append(" inline data), ").append(getSiteTotalBytes())
+                .append(" bytes including referenced assets</p>\n<table>\n<thead><tr>");
+        for (final String column : COLUMNS) {
+            out.append("<th>").append(column).append("</th>");
+        }
+        out.append("</tr></thead>\n<tbody>\n");
+        for (final PageMetrics page : pages) {
+            final List<String> pageViolations = getViolations(page);
+            out.append(pageViolations.isEmpty() ? "<tr>" : "<tr class=\"over\">")
+                    .append("<td>").append(escapeHtml(page.getPath())).append("</td>")
+                    .append("<td>").append(page.getHtmlBytes()).append("</td>")
+                    .append("<td>").append(page.getInlineDataBytes()).append("</td>")
+                    .append("<td>").append(page.getResourceCount()).append("</td>")
+                    .append("<td>").append(page.getAssetBytes()).append("</td>")
+                    .append("<td>").append(page.getTotalBytes()).append("</td>")
+                    .append("<td>").append(page.getDomNodes()).append("</td>")
+                    .append("<td>").append(page.getDomDepth()).append("</td>")
+                    .append("<td>").append(escapeHtml(String.join("; ", pageViolations))).append("</td></tr>\n");
+        }
+        out.append("</tbody>\n</table>\n<script>\n")
+                .append("document.querySelectorAll('th').forEach(function (th, column) {\n")
+                .append("  th.addEventListener('click', function () {\n")
+                .append("    var body = th.closest('table').tBodies[0];\n")
+                .append("    var rows = Array.prototype.slice.call(body.rows);\n")
+                .append("    var descending = th.dataset.order !== 'desc';\n")
+                .append("    th.dataset.order = descending ? 'desc' : 'asc';\n")
+                .append("    rows.sort(function (a, b) {\n")
+                .append("      var x = a.cells[column].textContent, y = b.cells[column].textContent;\n")
+                .append("      var result = isNaN(x) || isNaN(y) || x === '' || y === ''\n")
+                .append("          ? x.localeCompare(y) : Number(x) - Number(y);\n")
+                .append("      return descending ? -result : result;\n")
+                .append("    });\n")
+                .append("    rows.forEach(function (row) { body.appendChild(row); });\n")
+                .append("  });\n")
+                .append("});\n</script>\n</body>\n</html>\n");
+        return out.toString();
+    }
+
+    private List<String> getViolations(final PageMetrics page) {
+        final List<String> pageViolations = violations.get(page.getPath());
+        return pageViolations != null ? pageViolations : new ArrayList<String>();
+    }
+
+    private static String escapeHtml(final String value) {
+        return HtmlEscapers.htmlEscaper().escape(value);
+    }
+
+    private static String escapeJson(final String value) {
+        final StringBuilder out = new StringBuilder();
+        for (final char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+}
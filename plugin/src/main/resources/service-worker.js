@@ -0,0 +1,106 @@
+/*
+ * Generated by documentation-maven-plugin. Serves the documentation site from a cache, so repeat visits work
+ * offline. When a new build is deployed, only the entries whose content hash changed are downloaded again.
+ *
+ * Each manifest version is installed into its own cache, so the cache the running worker serves from is never
+ * modified: unchanged entries are copied from the previous caches, changed entries are downloaded, and the previous
+ * caches are only deleted once the new worker activates. A failed install leaves the site served by the previous
+ * worker.
+ */
+var PRECACHE_MANIFEST = ${manifest};
+var CACHE_PREFIX = '${cacheName}@';
+var CACHE_NAME = CACHE_PREFIX + PRECACHE_MANIFEST.version;
+var LEGACY_CACHE_NAME = '${cacheName}';
+var MANIFEST_KEY = '__precache-manifest';
+
+function toUrl(path) {
+    return new URL(path, self.registration.scope).href;
+}
+
+function isPreviousCache(name) {
+    return name !== CACHE_NAME && (name === LEGACY_CACHE_NAME || name.indexOf(CACHE_PREFIX) === 0);
+}
+
+function readCachedManifest(cache) {
+    return cache.match(MANIFEST_KEY).then(function (response) {
+        return response ? response.json() : {entries: []};
+    });
+}
+
+function openPreviousCaches() {
+    return caches.keys().then(function (names) {
+        return Promise.all(names.filter(isPreviousCache).map(function (name) {
+            return caches.open(name).then(function (cache) {
+                return readCachedManifest(cache).then(function (manifest) {
+                    var hashes = {};
+                    manifest.entries.forEach(function (entry) {
+                        hashes[entry.url] = entry.hash;
+                    });
+                    return {cache: cache, hashes: hashes};
+                });
+            });
+        }));
+    });
+}
+
+function matchPrevious(previousCaches, entry, url) {
+    var candidates = previousCaches.filter(function (previous) {
+        return previous.hashes[entry.url] === entry.hash;
+    });
+    return candidates.reduce(function (found, previous) {
+        return found.then(function (response) {
+            return response || previous.cache.match(url);
+        });
+    }, Promise.resolve(undefined));
+}
+
+function download(url) {
+    return fetch(new Request(url, {cache: 'reload'})).then(function (response) {
+        if (!response.ok) {
+            throw new Error('Failed to precache ' + url + ': ' + response.status);
+        }
+        return response;
+    });
+}
+
+self.addEventListener('install', function (event) {
+    event.waitUntil(Promise.all([caches.open(CACHE_NAME), openPreviousCaches()]).then(function (opened) {
+        var staging = opened[0];
+        var previousCaches = opened[1];
+        return Promise.all(PRECACHE_MANIFEST.entries.map(function (entry) {
+            var url = toUrl(entry.url);
+            return matchPrevious(previousCaches, entry, url).then(function (cached) {
+                return cached || download(url);
+            }).then(function (response) {
+                return staging.put(url, response);
+            });
+        })).then(function () {
+            // written last, so that only a complete cache is ever used to copy entries from
+            return staging.put(MANIFEST_KEY, new Response(JSON.stringify(PRECACHE_MANIFEST)));
+        });
+    }).then(function () {
+        return self.skipWaiting();
+    }));
+});
+
+self.addEventListener('activate', function (event) {
+    event.waitUntil(caches.keys().then(function (names) {
+        return Promise.all(names.filter(isPreviousCache).map(function (name) {
+            return caches.delete(name);
+        }));
+    }).then(function () {
+        return self.clients.claim();
+    }));
+});
+
+self.addEventListener('fetch', function (event) {
+    var request = event.request;
+    if (request.method !== 'GET' || new URL(request.url).origin !== self.location.origin) {
+        return;
+    }
+    event.respondWith(caches.open(CACHE_NAME).then(function (cache) {
+        return cache.match(request, {ignoreSearch: true}).then(function (cached) {
+            return cached || fetch(request);
+        });
+    }));
+});
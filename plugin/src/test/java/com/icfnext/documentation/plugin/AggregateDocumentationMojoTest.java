@@ -0,0 +1,218 @@
+package com.icfnext.documentation.plugin;
+
+import com.icfnext.documentation.plugin.benchmark.MojoRunner;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AggregateDocumentationMojoTest {
+
+    private static final String HEADER =
+            "<html><head></head><body><a href=\"${site-root}index.html\">Home</a><nav></nav>";
+    private static final String FOOTER = "</body></html>";
+    private static final long OLD_MTIME = 1000000000000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<MavenProject> projects = new ArrayList<>();
+    private File headerFile;
+    private File footerFile;
+    private MojoRunner runner;
+
+    @Before
+    public void setUp() throws Exception {
+        headerFile = folder.newFile("header.html");
+        footerFile = folder.newFile("footer.html");
+        write(headerFile, HEADER);
+        write(footerFile, FOOTER);
+        runner = new MojoRunner(new SystemStreamLog());
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private File module(final String artifactId) throws IOException {
+        final File basedir = folder.newFolder(artifactId);
+        final MavenProject project = new MavenProject();
+        project.setArtifactId(artifactId);
+        project.setFile(new File(basedir, "pom.xml"));
+        projects.add(project);
+        return new File(basedir, "docs");
+    }
+
+    @SuppressWarnings("deprecation")
+    private Map<String, Object> configuration(final File outputDir) {
+        final MavenSession session = new MavenSession(null, new DefaultMavenExecutionRequest(), null,
+                projects);
+        final Map<String, Object> configuration = new HashMap<>();
+        configuration.put("session", session);
+        configuration.put("outputDir", outputDir);
+        configuration.put("stateDir", new File(folder.getRoot(), "state"));
+        configuration.put("headerHtmlFile", headerFile);
+        configuration.put("footerHtmlFile", footerFile);
+        configuration.put("transformers",
+                Collections.singletonList("com.icfnext.documentation.plugin.html.IcfNextTransformer"));
+        configuration.put("title", "Contents");
+        configuration.put("levelsToInclude", 2);
+        return configuration;
+    }
+
+    private static Map<String, String> pages(final File directory) throws IOException {
+        final Map<String, String> pages = new TreeMap<>();
+        Files.walk(directory.toPath()).filter(Files::isRegularFile).forEach(path -> {
+            try {
+                pages.put(directory.toPath().relativize(path).toString().replace('\\', '/'),
+                        new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return pages;
+    }
+
+    @Test
+    public void modulesAreRenderedIntoSubdirectories() throws Exception {
+        final File core = module("core");
+        write(new File(core, "index.md"), "# Core\n\n## Usage\n\nText.\n");
+        write(new File(core, "guide/setup.md"), "# Setup\n\n## Install\n\nText.\n");
+        write(new File(module("web"), "index.md"), "# Web\n\nText.\n");
+        module("undocumented");
+        final File outputDir = new File(folder.getRoot(), "html");
+
+        runner.run(AggregateDocumentationMojo.class, configuration(outputDir));
+
+        final Map<String, String> pages = pages(outputDir);
+        assertEquals(new ArrayList<>(pages.keySet()).toString(), 3, pages.size());
+        assertTrue(pages.get("core/index.html").contains("href=\"../index.html\""));
+        assertTrue(pages.get("core/guide/setup.html").contains("href=\"../../index.html\""));
+        assertTrue(pages.get("core/guide/setup.html").contains("Install</a>"));
+        assertTrue(pages.get("web/index.html").contains("<h1"));
+        assertFalse(new File(outputDir, "undocumented").exists());
+    }
+
+    @Test
+    public void pagesAreRenderedAsByMarkdownToHtml() throws Exception {
+        // the site root differs between the layouts
+        write(headerFile, "<html><head></head><body><nav></nav>");
+        final File docs = module("core");
+        write(new File(docs, "fragments/note.md"), "**Included note.**\n");
+        write(new File(docs, "index.md"), "# Index\n\n{{include note.md}}\n\n## Part one\n\nOne.\n\n"
+                + "## Part two\n\nTwo.\n");
+        final File aggregateDir = new File(folder.getRoot(), "aggregate");
+        final Map<String, Object> aggregate = configuration(aggregateDir);
+        aggregate.put("fragmentDirectory", "fragments");
+        aggregate.put("splitHeadingLevel", 2);
+
+        runner.run(AggregateDocumentationMojo.class, aggregate);
+
+        final File singleDir = new File(folder.getRoot(), "single/core");
+        final Map<String, Object> markdownToHtml = new HashMap<>();
+        markdownToHtml.put("baseDir", docs);
+        markdownToHtml.put("outputDir", singleDir);
+        markdownToHtml.put("fragmentDir", new File(docs, "fragments"));
+        markdownToHtml.put("splitHeadingLevel", 2);
+        markdownToHtml.put("headerHtmlFile", headerFile);
+        markdownToHtml.put("footerHtmlFile", footerFile);
+        markdownToHtml.put("includeGraphFile", new File(folder.getRoot(), "include-graph.txt"));
+        markdownToHtml.put("hashIndexFile", new File(folder.getRoot(), "markdown-hashes.txt"));
+        runner.run(MarkdownToHtmlMojo.class, markdownToHtml);
+        final Map<String, Object> transformHtml = new HashMap<>();
+        transformHtml.put("baseDir", singleDir);
+        transformHtml.put("transformers",
+                Collections.singletonList("com.icfnext.documentation.plugin.html.IcfNextTransformer"));
+        transformHtml.put("linkGraphFile", new File(folder.getRoot(), "link-graph.txt"));
+        runner.run(HtmlTransformMojo.class, transformHtml);
+        final Map<String, Object> addTableOfContents = new HashMap<>();
+        addTableOfContents.put("baseDir", singleDir);
+        addTableOfContents.put("title", "Contents");
+        addTableOfContents.put("levelsToInclude", 2);
+        runner.run(AddTableOfContentsMojo.class, addTableOfContents);
+
+        final Map<String, String> pages = pages(new File(aggregateDir, "core"));
+        assertTrue(pages.toString(), pages.size() > 1);
+        assertTrue(pages.get("index.html").contains("<strong>Included note.</strong>"));
+        assertFalse(pages.containsKey("fragments/note.html"));
+        final Map<String, String> single = pages(singleDir);
+        assertEquals(single.keySet(), pages.keySet());
+        for (final Map.Entry<String, String> page : pages.entrySet()) {
+            assertEquals(page.getKey(), normalize(single.get(page.getKey())), normalize(page.getValue()));
+        }
+    }
+
+    /**
+     * The separate goals mark the pages they processed, and serialize pages again after each pass
+     */
+    private static String normalize(final String html) {
+        return html.replaceAll("\\s*<meta name=\"documentation:[^>]*>", "").replaceAll(">\\s+", ">")
+                .replaceAll("\\s+<", "<");
+    }
+
+    @Test
+    public void parallelRenderingMatchesSingleThreadedRendering() throws Exception {
+        for (int module = 0; module < 3; module++) {
+            final File docs = module("module-" + module);
+            write(new File(docs, "fragments/shared.md"), "Shared text.\n");
+            for (int page = 0; page < 40; page++) {
+                write(new File(docs, "section-" + page % 4 + "/page-" + page + ".md"), "# Page " + page
+                        + "\n\n{{include shared.md}}\n\n## First\n\nOne.\n\n## Second\n\nTwo.\n");
+            }
+        }
+        final File singleThreadedDir = new File(folder.getRoot(), "single");
+        final Map<String, Object> singleThreaded = configuration(singleThreadedDir);
+        singleThreaded.put("threads", 1);
+        singleThreaded.put("fragmentDirectory", "fragments");
+        runner.run(AggregateDocumentationMojo.class, singleThreaded);
+        final File parallelDir = new File(folder.getRoot(), "parallel");
+        final Map<String, Object> parallel = configuration(parallelDir);
+        parallel.put("threads", 8);
+        parallel.put("fragmentDirectory", "fragments");
+
+        runner.run(AggregateDocumentationMojo.class, parallel);
+
+        final Map<String, String> pages = pages(parallelDir);
+        assertEquals(3 * 40, pages.size());
+        assertEquals(pages(singleThreadedDir), pages);
+    }
+
+    @Test
+    public void incrementalBuildLeavesUnchangedPages() throws Exception {
+        final File docs = module("core");
+        write(new File(docs, "index.md"), "# Index\n\nText.\n");
+        write(new File(docs, "other.md"), "# Other\n\nText.\n");
+        final File outputDir = new File(folder.getRoot(), "html");
+        final Map<String, Object> configuration = configuration(outputDir);
+        configuration.put("incremental", true);
+        runner.run(AggregateDocumentationMojo.class, configuration);
+        assertTrue(new File(outputDir, "core/index.html").setLastModified(OLD_MTIME));
+        assertTrue(new File(outputDir, "core/other.html").setLastModified(OLD_MTIME));
+        write(new File(docs, "other.md"), "# Other\n\nChanged.\n");
+
+        runner.run(AggregateDocumentationMojo.class, configuration);
+
+        assertEquals(OLD_MTIME, new File(outputDir, "core/index.html").lastModified());
+        assertTrue(pages(outputDir).get("core/other.html").contains("Changed."));
+    }
+}
@@ -0,0 +1,196 @@
+package com.icfnext.documentation.plugin;
+
+import com.icfnext.documentation.plugin.benchmark.MojoRunner;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs markdown-to-html, transform-html and add-table-of-contents in place over the same output directory, as the
+ * documentation module does
+ */
+public class IncrementalPipelineTest {
+
+    private static final long OLD_MTIME = 1000000000000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File docsDir;
+    private File htmlDir;
+    private File stateDir;
+    private MojoRunner runner;
+
+    @Before
+    public void setUp() throws Exception {
+        docsDir = folder.newFolder("docs");
+        htmlDir = folder.newFolder("html");
+        stateDir = folder.newFolder("state");
+        write(new File(docsDir, "index.md"), "# Index: the start\n\nSee [the guide](guide/guide.html).\n");
+        write(new File(docsDir, "guide/guide.md"), "# Guide\n\n## Install\n\nText.\n\n## Use\n\nMore text.\n");
+        runner = new MojoRunner(new SystemStreamLog());
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void build() throws Exception {
+        build(false);
+    }
+
+    private void build(final boolean resourceHints) throws Exception {
+        final Map<String, Object> markdownToHtml = new HashMap<>();
+        markdownToHtml.put("baseDir", docsDir);
+        markdownToHtml.put("outputDir", htmlDir);
+        markdownToHtml.put("incremental", true);
+        markdownToHtml.put("includeGraphFile", new File(stateDir, "include-graph.txt"));
+        markdownToHtml.put("hashIndexFile", new File(stateDir, "markdown-hashes.txt"));
+        runner.run(MarkdownToHtmlMojo.class, markdownToHtml);
+
+        final Map<String, Object> transformHtml = new HashMap<>();
+        transformHtml.put("baseDir", htmlDir);
+        transformHtml.put("transformers",
+                Collections.singletonList("com.icfnext.documentation.plugin.html.IcfNextTransformer"));
+        transformHtml.put("resourceHints", resourceHints);
+        transformHtml.put("linkGraphFile", new File(stateDir, "link-graph.txt"));
+        runner.run(HtmlTransformMojo.class, transformHtml);
+
+        final Map<String, Object> addTableOfContents = new HashMap<>();
+        addTableOfContents.put("baseDir", htmlDir);
+        addTableOfContents.put("title", "Contents");
+        addTableOfContents.put("levelsToInclude", 2);
+        runner.run(AddTableOfContentsMojo.class, addTableOfContents);
+    }
+
+    private Map<String, String> pages() throws IOException {
+        final Map<String, String> pages = new TreeMap<>();
+        Files.walk(htmlDir.toPath()).filter(Files::isRegularFile).forEach(path -> {
+            try {
+                pages.put(htmlDir.toPath().relativize(path).toString(),
+                        new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+                assertTrue(path.toFile().setLastModified(OLD_MTIME));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        return pages;
+    }
+
+    @Test
+    public void secondBuildLeavesPagesUnchanged() throws Exception {
+        build();
+        final Map<String, String> firstBuild = pages();
+        assertEquals(2, firstBuild.size());
+        assertTrue(firstBuild.get("index.html").contains("<nav>"));
+
+        build();
+
+        for (final File page : new File[] {new File(htmlDir, "index.html"), new File(htmlDir, "guide/guide.html")}) {
+            assertEquals(page.getPath(), OLD_MTIME, page.lastModified());
+        }
+        assertEquals(firstBuild, pages());
+    }
+
+    @Test
+    public void changedSourceOnlyRewritesItsPage() throws Exception {
+        build();
+        pages();
+        write(new File(docsDir, "guide/guide.md"), "# Guide\n\n## Install\n\nChanged.\n");
+
+        build();
+
+        assertEquals(OLD_MTIME, new File(htmlDir, "index.html").lastModified());
+        final String guide = new String(Files.readAllBytes(new File(htmlDir, "guide/guide.html").toPath()),
+                StandardCharsets.UTF_8);
+        assertTrue(guide.contains("Changed."));
+        assertTrue(guide.contains("<nav>"));
+    }
+
+    @Test
+    public void resourceHintsAreOnlyRefreshedWhenTheLinkGraphChanges() throws Exception {
+        build(true);
+        // the first build had no link graph to rank prefetch candidates with
+        build(true);
+        assertTrue(pages().get("index.html").contains("rel=\"prefetch\" href=\"guide/guide.html\""));
+        // formatting that parsing and serializing the page would change
+        final File index = new File(htmlDir, "index.html");
+        write(index, new String(Files.readAllBytes(index.toPath()), StandardCharsets.UTF_8).replace("<p>", "<P>"));
+        final Map<String, String> hinted = pages();
+
+        build(true);
+
+        assertEquals(OLD_MTIME, new File(htmlDir, "index.html").lastModified());
+        assertEquals(OLD_MTIME, new File(htmlDir, "guide/guide.html").lastModified());
+        assertEquals(hinted, pages());
+
+        write(new File(docsDir, "guide/guide.md"), "# Guide\n\nBack to [the index](../index.html).\n");
+        build(true);
+        build(true);
+
+        assertTrue(pages().get("index.html").contains("data-resource-hint"));
+        assertTrue(new String(Files.readAllBytes(new File(stateDir, "link-graph.txt").toPath()),
+                StandardCharsets.UTF_8).contains("link\tguide/guide.html\tindex.html"));
+    }
+
+    private void transformWithOtherConfiguration(final boolean failOnError) throws Exception {
+        final Map<String, Object> transformHtml = new HashMap<>();
+        transformHtml.put("baseDir", htmlDir);
+        transformHtml.put("failOnError", failOnError);
+        transformHtml.put("transformers", Arrays.asList("com.icfnext.documentation.plugin.html.IcfNextTransformer",
+                "com.icfnext.documentation.plugin.html.IcfNextTransformer"));
+        runner.run(HtmlTransformMojo.class, transformHtml);
+    }
+
+    @Test
+    public void pageProcessedWithOtherConfigurationFailsTheBuild() throws Exception {
+        build();
+
+        try {
+            transformWithOtherConfiguration(true);
+            fail("Expected the outdated page to fail the build");
+        } catch (MojoExecutionException e) {
+            assertTrue(e.getMessage().contains("different configuration"));
+        }
+    }
+
+    @Test
+    public void pageProcessedWithOtherConfigurationIsLeftUnchanged() throws Exception {
+        build();
+        final Map<String, String> processed = pages();
+
+        transformWithOtherConfiguration(false);
+
+        assertEquals(OLD_MTIME, new File(htmlDir, "index.html").lastModified());
+        assertEquals(processed, pages());
+    }
+
+    @Test
+    public void deletedPageIsGeneratedAgain() throws Exception {
+        build();
+        final Map<String, String> processed = pages();
+        assertTrue(new File(htmlDir, "index.html").delete());
+
+        build();
+
+        assertEquals(processed, pages());
+    }
+}
@@ -0,0 +1,193 @@
+package com.icfnext.documentation.plugin.bundle;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SiteBundleTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, byte[]> contents = new LinkedHashMap<>();
+
+    @Before
+    public void createContents() {
+        final StringBuilder page = new StringBuilder("<html><body>");
+        for (int i = 0; i < 200; i++) {
+            page.append("<p>Paragraph ").append(i).append("</p>");
+        }
+        page.append("</body></html>");
+        contents.put("index.html", page.toString().getBytes(StandardCharsets.UTF_8));
+        contents.put("guide/setup.html", "<p>setup</p>".getBytes(StandardCharsets.UTF_8));
+        contents.put("css/site.css", "body { color: black; }".getBytes(StandardCharsets.UTF_8));
+        contents.put("images/logo.png", new byte[]{(byte) 0x89, 'P', 'N', 'G', 0, (byte) 0xff, 1, 2});
+        contents.put("empty.txt", new byte[0]);
+        contents.put("caf\u00e9.html", "<p>caf\u00e9</p>".getBytes(StandardCharsets.UTF_8));
+        // sorts first, so its data directly follows the header
+        contents.put("app.js", "console.log('first');".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private File write(final boolean precompress) throws IOException {
+        final File sourceDir = folder.newFolder("site");
+        final SiteBundleWriter writer = new SiteBundleWriter(precompress);
+        for (final Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            // entry paths are independent of file names, which keeps non-ASCII paths off the file system
+            final File file = new File(sourceDir, "entry-" + writer.size());
+            Files.write(file.toPath(), entry.getValue());
+            writer.add(entry.getKey(), file);
+        }
+        final File bundleFile = new File(folder.getRoot(), "site.bundle");
+        writer.write(bundleFile);
+        return bundleFile;
+    }
+
+    private static byte[] toBytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static byte[] gunzip(final byte[] compressed) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            final byte[] buffer = new byte[4096];
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void readsBackEveryEntry() throws IOException {
+        try (final SiteBundle bundle = SiteBundle.open(write(false))) {
+            assertEquals(contents.size(), bundle.size());
+            for (final Map.Entry<String, byte[]> entry : contents.entrySet()) {
+                assertTrue(entry.getKey(), bundle.contains(entry.getKey()));
+                assertArrayEquals(entry.getKey(), entry.getValue(), toBytes(bundle.get(entry.getKey())));
+                assertNull(bundle.getGzip(entry.getKey()));
+            }
+        }
+    }
+
+    @Test
+    public void firstEntryDirectlyFollowsHeader() throws IOException {
+        final File bundleFile = write(false);
+        try (final SiteBundle bundle = SiteBundle.open(bundleFile)) {
+            assertEquals("app.js", bundle.getPaths().get(0));
+            assertArrayEquals(contents.get("app.js"), toBytes(bundle.get("app.js")));
+        }
+        final byte[] raw = Files.readAllBytes(bundleFile.toPath());
+        final byte[] first = contents.get("app.js");
+        assertArrayEquals(first, Arrays.copyOfRange(raw, SiteBundleFormat.HEADER_SIZE,
+                SiteBundleFormat.HEADER_SIZE + first.length));
+    }
+
+    @Test
+    public void listsPathsInUnsignedByteOrder() throws IOException {
+        try (final SiteBundle bundle = SiteBundle.open(write(false))) {
+            assertEquals(Arrays.asList("app.js", "caf\u00e9.html", "css/site.css", "empty.txt", "guide/setup.html",
+                    "images/logo.png", "index.html"), bundle.getPaths());
+        }
+    }
+
+    @Test
+    public void storesSmallerGzipVariantsOfTextEntries() throws IOException {
+        try (final SiteBundle bundle = SiteBundle.open(write(true))) {
+            final ByteBuffer compressed = bundle.getGzip("index.html");
+            assertNotNull(compressed);
+            assertTrue(compressed.remaining() < contents.get("index.html").length);
+            assertArrayEquals(contents.get("index.html"), gunzip(toBytes(compressed)));
+            // too small to benefit from compression, or not text
+            assertNull(bundle.getGzip("app.js"));
+            assertNull(bundle.getGzip("images/logo.png"));
+            for (final Map.Entry<String, byte[]> entry : contents.entrySet()) {
+                assertArrayEquals(entry.getKey(), entry.getValue(), toBytes(bundle.get(entry.getKey())));
+            }
+        }
+    }
+
+    @Test
+    public void returnsNullForMissingEntries() throws IOException {
+        try (final SiteBundle bundle = SiteBundle.open(write(true))) {
+            assertNull(bundle.get("missing.html"));
+            assertNull(bundle.getGzip("missing.html"));
+            assertFalse(bundle.contains("guide"));
+            assertFalse(bundle.contains("index.htm"));
+            assertFalse(bundle.contains("zzz"));
+        }
+    }
+
+    @Test
+    public void entriesAreReadOnly() throws IOException {
+        try (final SiteBundle bundle = SiteBundle.open(write(false))) {
+            assertTrue(bundle.get("index.html").isReadOnly());
+        }
+    }
+
+    @Test
+    public void rejectsDuplicateEntries() throws IOException {
+        final File file = folder.newFile("a.html");
+        final SiteBundleWriter writer = new SiteBundleWriter(false);
+        writer.add("a.html", file);
+        writer.add("a.html", file);
+        try {
+            writer.write(new File(folder.getRoot(), "duplicate.bundle"));
+            fail("Duplicate entry was accepted");
+        } catch (IOException e) {
+            assertEquals("Duplicate bundle entry: a.html", e.getMessage());
+        }
+    }
+
+    @Test
+    public void rejectsOtherFiles() throws IOException {
+        final File file = folder.newFile("not-a-bundle");
+        Files.write(file.toPath(), new byte[64]);
+        try {
+            SiteBundle.open(file).close();
+            fail("Opened a file that is not a bundle");
+        } catch (IOException e) {
+            assertEquals("Not a site bundle", e.getMessage());
+        }
+    }
+
+    @Test
+    public void failsWhenFileShrinksWhileBundled() throws IOException {
+        final File source = folder.newFile("shrunk.html");
+        Files.write(source.toPath(), new byte[10]);
+        final File target = folder.newFile("target.bundle");
+        try (final FileChannel in = new RandomAccessFile(source, "r").getChannel();
+             final FileChannel out = new RandomAccessFile(target, "rw").getChannel()) {
+            // the size recorded before the file was truncated
+            SiteBundleWriter.transferFully(in, 25, out, "shrunk.html");
+            fail("Copied a file shorter than its recorded size");
+        } catch (IOException e) {
+            assertEquals("File changed while being bundled: shrunk.html (expected 25 bytes, read 10)", e.getMessage());
+        }
+    }
+}
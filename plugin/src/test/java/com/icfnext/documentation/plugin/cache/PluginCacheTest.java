@@ -0,0 +1,103 @@
+package com.icfnext.documentation.plugin.cache;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PluginCacheTest {
+
+    private static final long MTIME = 1000000000000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        PluginCache.invalidateAll();
+    }
+
+    private File file(final String content) throws IOException {
+        final File file = new File(folder.getRoot(), "header.html");
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setLastModified(MTIME));
+        return file;
+    }
+
+    @Test
+    public void valuesAreCreatedOnce() {
+        final AtomicInteger created = new AtomicInteger();
+
+        final Object first = PluginCache.get("value", Object.class, () -> created.incrementAndGet() + "");
+        final Object second = PluginCache.get("value", Object.class, () -> created.incrementAndGet() + "");
+
+        assertSame(first, second);
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void keysAreScopedByType() {
+        assertEquals("string", PluginCache.get("value", String.class, () -> "string"));
+        assertEquals(Integer.valueOf(1), PluginCache.get("value", Integer.class, () -> 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void loaderFailureIsReported() {
+        PluginCache.get("failing", Object.class, () -> {
+            throw new IOException("failed");
+        });
+    }
+
+    @Test
+    public void unchangedFileIsReadFromCache() throws IOException {
+        final File file = file("<header>");
+        final String first = PluginCache.readFile(file, StandardCharsets.UTF_8);
+        final long hits = PluginCache.stats().hitCount();
+
+        final String second = PluginCache.readFile(file, StandardCharsets.UTF_8);
+
+        assertEquals("<header>", second);
+        assertSame(first, second);
+        assertEquals(hits + 1, PluginCache.stats().hitCount());
+    }
+
+    @Test
+    public void changedFileWithSameSizeAndModificationTimeIsReadAgain() throws IOException {
+        final File file = file("<header>");
+        assertEquals("<header>", PluginCache.readFile(file, StandardCharsets.UTF_8));
+
+        final File changed = file("<footer>");
+
+        assertEquals(file.length(), changed.length());
+        assertEquals(MTIME, changed.lastModified());
+        assertEquals("<footer>", PluginCache.readFile(changed, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void fileIsDecodedWithEachCharset() throws IOException {
+        final File file = file("caf\u00e9");
+
+        assertEquals("caf\u00e9", PluginCache.readFile(file, StandardCharsets.UTF_8));
+        assertEquals("caf\u00c3\u00a9", PluginCache.readFile(file, StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void invalidateAllDiscardsValues() {
+        final Object first = PluginCache.get("value", Object.class, Object::new);
+
+        PluginCache.invalidateAll();
+
+        assertNotSame(first, PluginCache.get("value", Object.class, Object::new));
+    }
+}
@@ -0,0 +1,252 @@
+package com.icfnext.documentation.plugin.html;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class HtmlTokenizerTest {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static List<HtmlToken> tokenize(final Reader reader) throws IOException {
+        final HtmlTokenizer tokenizer = new HtmlTokenizer(reader);
+        final List<HtmlToken> tokens = new ArrayList<>();
+        for (HtmlToken token = tokenizer.next(); token != null; token = tokenizer.next()) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private static List<HtmlToken> tokenize(final String html) throws IOException {
+        return tokenize(new StringReader(html));
+    }
+
+    private static String write(final List<HtmlToken> tokens) {
+        final StringBuilder out = new StringBuilder();
+        for (final HtmlToken token : tokens) {
+            out.append(token);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Lists the tokens as {@code <name}, {@code </name}, {@code "text"} or {@code !markup}
+     */
+    private static String describe(final List<HtmlToken> tokens) {
+        final List<String> out = new ArrayList<>();
+        for (final HtmlToken token : tokens) {
+            if (token instanceof HtmlToken.StartTag) {
+                out.add("<" + ((HtmlToken.StartTag) token).getName());
+            } else if (token instanceof HtmlToken.EndTag) {
+                out.add("</" + ((HtmlToken.EndTag) token).getName());
+            } else if (token instanceof HtmlToken.Text) {
+                out.add("\"" + ((HtmlToken.Text) token).getText() + "\"");
+            } else {
+                out.add("!" + token.getRaw());
+            }
+        }
+        return out.toString();
+    }
+
+    @Test
+    public void splitsMarkupIntoTokens() throws IOException {
+        final String html = "<!DOCTYPE html><html><!-- note --><body class=\"main\"><p>Hello<br/>world</p></body></html>";
+        final List<HtmlToken> tokens = tokenize(html);
+
+        assertEquals("[!<!DOCTYPE html>, <html, !<!-- note -->, <body, <p, \"Hello\", <br, \"world\", </p, </body, "
+                + "</html]", describe(tokens));
+        assertEquals("main", ((HtmlToken.StartTag) tokens.get(3)).getAttribute("class"));
+        assertTrue(((HtmlToken.StartTag) tokens.get(6)).isSelfClosing());
+        assertEquals(html, write(tokens));
+    }
+
+    @Test
+    public void readsAttributeForms() throws IOException {
+        final HtmlToken.StartTag tag = (HtmlToken.StartTag) tokenize(
+                "<input TYPE=checkbox checked data-a='single \"quoted\"' data-b = \"spaced\" type=\"ignored\">").get(0);
+
+        assertEquals("input", tag.getName());
+        assertEquals("checkbox", tag.getAttribute("type"));
+        assertEquals("", tag.getAttribute("checked"));
+        assertEquals("single \"quoted\"", tag.getAttribute("data-a"));
+        assertEquals("spaced", tag.getAttribute("data-b"));
+        assertNull(tag.getAttribute("missing"));
+    }
+
+    @Test
+    public void keepsRawTextElementContentAsText() throws IOException {
+        final String html = "<script>if (a < b && c > d) { s = \"<p>\" + '</div>'; }</script>"
+                + "<style>a > b { content: \"<i>\"; }</style>"
+                + "<textarea><b>not bold</b></textarea>"
+                + "<title>A < B</title>";
+        final List<HtmlToken> tokens = tokenize(html);
+
+        assertEquals("[<script, \"if (a < b && c > d) { s = \"<p>\" + '</div>'; }\", </script, "
+                + "<style, \"a > b { content: \"<i>\"; }\", </style, "
+                + "<textarea, \"<b>not bold</b>\", </textarea, "
+                + "<title, \"A < B\", </title]", describe(tokens));
+        assertEquals(html, write(tokens));
+    }
+
+    @Test
+    public void rawTextEndTagIsCaseInsensitive() throws IOException {
+        assertEquals("[<script, \"x < 1\", </script, <p]", describe(tokenize("<SCRIPT>x < 1</Script><p>")));
+    }
+
+    @Test
+    public void handlesEmptyAndSelfClosingRawTextElements() throws IOException {
+        assertEquals("[<script, </script, <p, \"text\"]", describe(tokenize("<script></script><p>text")));
+        assertEquals("[<script, <p, \"text\", </p]", describe(tokenize("<script src=\"a.js\"/><p>text</p>")));
+    }
+
+    @Test
+    public void unterminatedRawTextRunsToEndOfInput() throws IOException {
+        final String html = "<script>var a = '<b>';";
+        final List<HtmlToken> tokens = tokenize(html);
+
+        assertEquals("[<script, \"var a = '<b>';\"]", describe(tokens));
+        assertEquals(html, write(tokens));
+    }
+
+    @Test
+    public void treatsMalformedTagsLeniently() throws IOException {
+        final String html = "a < b <3 </ p> <> <p =x \"odd\"=y>text</p <div class=\"open";
+        final List<HtmlToken> tokens = tokenize(html);
+
+        assertEquals("[\"a \", \"< b \", \"<3 \", \"</ p> \", \"<> \", <p, \"text\", </p]", describe(tokens));
+        final HtmlToken.StartTag p = (HtmlToken.StartTag) tokens.get(5);
+        assertEquals("", p.getAttribute("x"));
+        assertEquals("y", p.getAttribute("\"odd\""));
+        assertEquals(html, write(tokens));
+    }
+
+    @Test
+    public void unterminatedTagRunsToEndOfInput() throws IOException {
+        final String html = "<p>text<div class=\"open";
+        final List<HtmlToken> tokens = tokenize(html);
+
+        assertEquals("[<p, \"text\", <div]", describe(tokens));
+        assertEquals("open", ((HtmlToken.StartTag) tokens.get(2)).getAttribute("class"));
+        assertEquals(html, write(tokens));
+    }
+
+    @Test
+    public void unterminatedCommentRunsToEndOfInput() throws IOException {
+        assertEquals("[<p, !<!-- open]", describe(tokenize("<p><!-- open")));
+    }
+
+    @Test
+    public void readsTokensSpanningBufferBoundaries() throws IOException {
+        for (int offset = BUFFER_SIZE - 12; offset <= BUFFER_SIZE + 2; offset++) {
+            final String html = pad(offset) + "<a href=\"x\">link</a><!-- c --><script>1<2</script>";
+            final List<HtmlToken> tokens = tokenize(html);
+
+            assertEquals("offset " + offset, "[\"" + pad(offset) + "\", <a, \"link\", </a, !<!-- c -->, <script, "
+                    + "\"1<2\", </script]", describe(tokens));
+            assertEquals("x", ((HtmlToken.StartTag) tokens.get(1)).getAttribute("href"));
+            assertEquals(html, write(tokens));
+        }
+    }
+
+    @Test
+    public void readsInputDeliveredInSmallChunks() throws IOException {
+        final String html = "<!DOCTYPE html><html><head><title>T</title></head><body><p class=\"a b\">x</p>"
+                + "<script>if (a</b) {}</script></body></html>";
+
+        assertEquals(describe(tokenize(html)), describe(tokenize(new TrickleReader(html))));
+        assertEquals(html, write(tokenize(new TrickleReader(html))));
+    }
+
+    @Test
+    public void readsAttributesLongerThanTheBuffer() throws IOException {
+        final String value = pad(BUFFER_SIZE * 3 + 17);
+        final String html = "<img alt=\"" + value + "\" src=\"a.png\"><p>after</p>";
+        final List<HtmlToken> tokens = tokenize(html);
+
+        assertEquals("[<img, <p, \"after\", </p]", describe(tokens));
+        final HtmlToken.StartTag img = (HtmlToken.StartTag) tokens.get(0);
+        assertEquals(value, img.getAttribute("alt"));
+        assertEquals("a.png", img.getAttribute("src"));
+        assertEquals(html, write(tokens));
+    }
+
+    @Test
+    public void readsRawTextLongerThanTheBuffer() throws IOException {
+        final String script = pad(BUFFER_SIZE * 2 + 5).replace('x', '<');
+        final List<HtmlToken> tokens = tokenize("<script>" + script + "</script>");
+
+        assertEquals(3, tokens.size());
+        assertEquals(script, ((HtmlToken.Text) tokens.get(1)).getText());
+    }
+
+    @Test
+    public void peekDoesNotConsumeTokens() throws IOException {
+        final HtmlTokenizer tokenizer = new HtmlTokenizer(new StringReader("<p>a</p>"));
+
+        assertEquals("a", ((HtmlToken.Text) tokenizer.peek(1)).getText());
+        assertEquals("p", ((HtmlToken.StartTag) tokenizer.peek(0)).getName());
+        assertNull(tokenizer.peek(3));
+        assertEquals("p", ((HtmlToken.StartTag) tokenizer.next()).getName());
+        assertEquals("a", ((HtmlToken.Text) tokenizer.next()).getText());
+        assertEquals("p", ((HtmlToken.EndTag) tokenizer.next()).getName());
+        assertNull(tokenizer.next());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void peekIsLimited() throws IOException {
+        new HtmlTokenizer(new StringReader("<p>")).peek(HtmlTokenizer.MAX_LOOKAHEAD);
+    }
+
+    @Test
+    public void writesModifiedStartTags() throws IOException {
+        final HtmlToken.StartTag tag = (HtmlToken.StartTag) tokenize("<P  class=a   id='x'>").get(0);
+        assertEquals("<P  class=a   id='x'>", tag.toString());
+
+        tag.addClass("b").removeAttribute("id").setAttribute("title", "say \"hi\"");
+        assertEquals("<p class=\"a b\" title=\"say &quot;hi&quot;\">", tag.toString());
+    }
+
+    private static String pad(final int length) {
+        final StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            out.append('x');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Returns at most three characters per read, so that every token crosses several reads
+     */
+    private static class TrickleReader extends Reader {
+
+        private final String text;
+        private int position;
+
+        private TrickleReader(final String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(final char[] buffer, final int offset, final int length) {
+            if (position >= text.length()) {
+                return -1;
+            }
+            final int count = Math.min(Math.min(length, 3), text.length() - position);
+            text.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
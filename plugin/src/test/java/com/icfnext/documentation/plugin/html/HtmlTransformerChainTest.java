@@ -0,0 +1,131 @@
+package com.icfnext.documentation.plugin.html;
+
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class HtmlTransformerChainTest {
+
+    private static final String PAGE = "<html><head></head><body><p>one</p><p>two</p></body></html>";
+
+    /**
+     * Adds a class to every start tag with the given name
+     */
+    private static StreamingHtmlTransformer addClass(final String element, final String className) {
+        return new StreamingHtmlTransformer() {
+            @Override
+            public void startTag(final HtmlToken.StartTag tag, final StreamingContext context) throws IOException {
+                if (tag.getName().equals(element)) {
+                    tag.addClass(className);
+                }
+                context.emit(tag);
+            }
+        };
+    }
+
+    /**
+     * Appends a paragraph to the body
+     */
+    private static HtmlTransformer appendParagraph(final String text) {
+        return document -> document.body().appendElement("p").text(text);
+    }
+
+    private static HtmlTransformerChain chain(final Object... transformers) {
+        final HtmlTransformerChain chain = new HtmlTransformerChain();
+        for (final Object transformer : transformers) {
+            chain.add(transformer);
+        }
+        return chain;
+    }
+
+    @Test
+    public void streamingChainAppliesTransformersInOrder() throws IOException {
+        final HtmlTransformerChain chain = chain(addClass("p", "a"), addClass("p", "b"));
+
+        assertTrue(chain.isStreaming());
+        assertEquals("<html><head></head><body><p class=\"a b\">one</p><p class=\"a b\">two</p></body></html>",
+                chain.transform(PAGE));
+    }
+
+    @Test
+    public void streamingChainLeavesUntouchedMarkupAsIs() throws IOException {
+        final String page = "<!DOCTYPE html>\n<HTML><Body><!-- x --><div  id='a'>t</div></Body></HTML>";
+        final StringWriter out = new StringWriter();
+
+        chain(addClass("p", "a")).stream(new StringReader(page), out);
+
+        assertEquals(page, out.toString());
+    }
+
+    @Test
+    public void emptyChainCopiesInput() throws IOException {
+        final HtmlTransformerChain chain = new HtmlTransformerChain();
+
+        assertTrue(chain.isEmpty());
+        assertEquals(PAGE, chain.transform(PAGE));
+    }
+
+    @Test
+    public void mixedChainAppliesSegmentsInOrder() throws IOException {
+        // the first streaming segment runs before the paragraph is added, the last one after it
+        final HtmlTransformerChain chain = chain(addClass("p", "early"), appendParagraph("three"),
+                addClass("p", "late"), appendParagraph("four"), addClass("p", "last"));
+
+        assertFalse(chain.isStreaming());
+        final Document document = chain.transformToDocument(PAGE);
+
+        assertEquals("one", document.select("p.early.late.last").first().text());
+        assertEquals(2, document.select("p.early").size());
+        assertEquals(3, document.select("p.late").size());
+        assertEquals(4, document.select("p.last").size());
+        assertEquals("three", document.select("p.late:not(.early)").text());
+        assertEquals("four", document.select("p.last:not(.late)").text());
+    }
+
+    @Test
+    public void mixedChainTransformMatchesDocument() throws IOException {
+        final HtmlTransformerChain chain = chain(appendParagraph("three"), addClass("p", "a"));
+
+        assertEquals(chain.transformToDocument(PAGE).outerHtml(), chain.transform(PAGE));
+        assertEquals(3, chain.transformToDocument(PAGE).select("p.a").size());
+    }
+
+    @Test
+    public void transformDocumentStartsFromParsedTree() throws IOException {
+        final Document document = chain().transformToDocument(PAGE);
+        document.body().appendElement("p").text("parsed");
+
+        final Document result = chain(addClass("p", "a"), appendParagraph("added")).transformDocument(document);
+
+        assertEquals("one two parsed added", result.select("p").text());
+        assertEquals(3, result.select("p.a").size());
+    }
+
+    @Test
+    public void withReturnsExtendedCopy() throws IOException {
+        final HtmlTransformerChain chain = chain(addClass("p", "a"));
+        final HtmlTransformerChain extended = chain.with(appendParagraph("three"));
+
+        assertTrue(chain.isStreaming());
+        assertFalse(extended.isStreaming());
+        assertEquals(2, chain.transformToDocument(PAGE).select("p").size());
+        assertEquals(3, extended.transformToDocument(PAGE).select("p").size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void streamRejectsDomTransformers() throws IOException {
+        chain(addClass("p", "a"), appendParagraph("x")).stream(new StringReader(PAGE), new StringWriter());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addRejectsOtherObjects() {
+        new HtmlTransformerChain().add("not a transformer");
+    }
+}
@@ -0,0 +1,72 @@
+package com.icfnext.documentation.plugin.html;
+
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class HtmlTransformerFactoryTest {
+
+    private static final ClassLoader LOADER = HtmlTransformerFactoryTest.class.getClassLoader();
+
+    @ThreadSafeTransformer
+    public static class Stateless implements HtmlTransformer {
+        @Override
+        public void transform(final Document document) {
+        }
+    }
+
+    public static class Stateful implements HtmlTransformer {
+        private int pages;
+
+        @Override
+        public void transform(final Document document) {
+            pages++;
+        }
+    }
+
+    @Test
+    public void threadSafeTransformerIsShared() throws ReflectiveOperationException {
+        final Object transformer = HtmlTransformerFactory.getShared(Stateless.class.getName(), LOADER);
+
+        assertTrue(transformer instanceof Stateless);
+        assertSame(transformer, HtmlTransformerFactory.getShared(Stateless.class.getName(), LOADER));
+    }
+
+    @Test
+    public void otherTransformersAreCreatedForEachExecution() throws ReflectiveOperationException {
+        final Object transformer = HtmlTransformerFactory.getShared(Stateful.class.getName(), LOADER);
+
+        assertTrue(transformer instanceof Stateful);
+        assertNotSame(transformer, HtmlTransformerFactory.getShared(Stateful.class.getName(), LOADER));
+    }
+
+    @Test
+    public void classLoadersDoNotShareInstances() throws Exception {
+        try (URLClassLoader otherLoader = new URLClassLoader(new URL[0], LOADER)) {
+            assertNotSame(HtmlTransformerFactory.getShared(Stateless.class.getName(), LOADER),
+                    HtmlTransformerFactory.getShared(Stateless.class.getName(), otherLoader));
+        }
+    }
+
+    @Test
+    public void createAlwaysReturnsNewInstance() throws ReflectiveOperationException {
+        assertNotSame(HtmlTransformerFactory.create(Stateless.class.getName(), LOADER),
+                HtmlTransformerFactory.create(Stateless.class.getName(), LOADER));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void classMustImplementTransformer() throws ReflectiveOperationException {
+        HtmlTransformerFactory.getShared(String.class.getName(), LOADER);
+    }
+
+    @Test(expected = ClassNotFoundException.class)
+    public void missingClassIsReported() throws ReflectiveOperationException {
+        HtmlTransformerFactory.getShared("com.example.MissingTransformer", LOADER);
+    }
+}
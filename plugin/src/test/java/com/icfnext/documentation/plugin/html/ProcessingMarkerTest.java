@@ -0,0 +1,112 @@
+package com.icfnext.documentation.plugin.html;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProcessingMarkerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ProcessingMarker marker = new ProcessingMarker("transform-html", "a", 1);
+
+    private int pages;
+
+    private String stream(final String html) throws IOException {
+        final StringWriter out = new StringWriter();
+        new HtmlTransformerChain().with(marker.asStreamingTransformer()).stream(new StringReader(html), out);
+        return out.toString();
+    }
+
+    private ProcessingMarker.Status check(final ProcessingMarker marker, final String html) throws IOException {
+        final File file = folder.newFile("page-" + pages++ + ".html");
+        Files.write(file.toPath(), html.getBytes(StandardCharsets.UTF_8));
+        return marker.check(file);
+    }
+
+    private int countInHead(final String html) {
+        return Jsoup.parse(html).head().getElementsByAttributeValue("name", marker.getName()).size();
+    }
+
+    @Test
+    public void pageWithoutMarkerIsAbsent() throws IOException {
+        assertEquals(ProcessingMarker.Status.ABSENT, check(marker, "<html><head></head><body></body></html>"));
+    }
+
+    @Test
+    public void streamingAddsMarkerAfterHeadTag() throws IOException {
+        final String html = stream("<!DOCTYPE html><html><head><title>T</title></head><body><p>x</p></body></html>");
+
+        assertEquals(1, countInHead(html));
+        assertEquals(ProcessingMarker.Status.UP_TO_DATE, check(marker, html));
+    }
+
+    @Test
+    public void streamingAddsMarkerToPageWithoutHead() throws IOException {
+        // the default header of markdown-to-html
+        final String html = stream("<html><header></header><body><p>x</p></body></html>");
+
+        assertEquals(1, countInHead(html));
+        assertEquals(ProcessingMarker.Status.UP_TO_DATE, check(marker, html));
+    }
+
+    @Test
+    public void streamingAddsMarkerToPageWithoutHtmlTag() throws IOException {
+        final String html = stream("<!-- generated --><body><p>x</p></body>");
+
+        assertEquals(1, countInHead(html));
+        assertEquals(ProcessingMarker.Status.UP_TO_DATE, check(marker, html));
+    }
+
+    @Test
+    public void streamingAddsMarkerOnce() throws IOException {
+        final String html = stream("<html><head></head><body><head></head><p>x</p></body></html>");
+
+        assertEquals(1, Jsoup.parse(html).getElementsByAttributeValue("name", marker.getName()).size());
+    }
+
+    @Test
+    public void applyReplacesPreviousMarker() throws IOException {
+        final ProcessingMarker previous = new ProcessingMarker("transform-html", "b", 1);
+        final Document document = Jsoup.parse("<html><header></header><body></body></html>");
+        previous.apply(document);
+        marker.apply(document);
+
+        assertEquals(1, document.getElementsByAttributeValue("name", marker.getName()).size());
+        assertEquals(ProcessingMarker.Status.UP_TO_DATE, check(marker, document.outerHtml()));
+        assertEquals(ProcessingMarker.Status.OUTDATED, check(previous, document.outerHtml()));
+    }
+
+    @Test
+    public void sameConfigurationIsUpToDateForAnyExecution() throws IOException {
+        final ProcessingMarker commandLine = new ProcessingMarker("transform-html", "a", 1);
+
+        assertEquals(ProcessingMarker.Status.UP_TO_DATE, check(commandLine, stream("<html><head></head></html>")));
+    }
+
+    @Test
+    public void differentConfigurationIsOutdated() throws IOException {
+        final ProcessingMarker other = new ProcessingMarker("transform-html", "a", 2);
+
+        assertEquals(ProcessingMarker.Status.OUTDATED, check(other, stream("<html><head></head></html>")));
+    }
+
+    @Test
+    public void goalsHaveSeparateMarkers() throws IOException {
+        final ProcessingMarker other = new ProcessingMarker("add-table-of-contents", "a", 1);
+
+        assertEquals(ProcessingMarker.Status.ABSENT, check(other, stream("<html><head></head></html>")));
+    }
+}
@@ -0,0 +1,203 @@
+package com.icfnext.documentation.plugin.html;
+
+import com.icfnext.documentation.plugin.HtmlTransformMojo;
+import com.icfnext.documentation.plugin.benchmark.MojoRunner;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TransformerConditionTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static TransformerCondition condition(final String pathPattern, final String[] markers,
+            final String requiredSelector) {
+        return new TransformerCondition(new Conditional(pathPattern, markers, requiredSelector));
+    }
+
+    private static TransformerCondition pathCondition(final String pathPattern) {
+        return condition(pathPattern, null, null);
+    }
+
+    private static ByteBuffer bytes(final String content) {
+        return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void starMatchesWithinSegment() {
+        final TransformerCondition condition = pathCondition("api/*.html");
+
+        assertTrue(condition.matchesPath("api/index.html"));
+        assertFalse(condition.matchesPath("api/v1/index.html"));
+        assertFalse(condition.matchesPath("guide/index.html"));
+        assertFalse(condition.matchesPath("api/index.htm"));
+    }
+
+    @Test
+    public void questionMarkMatchesOneCharacter() {
+        final TransformerCondition condition = pathCondition("page-?.html");
+
+        assertTrue(condition.matchesPath("page-1.html"));
+        assertFalse(condition.matchesPath("page-10.html"));
+        assertFalse(condition.matchesPath("page-/.html"));
+    }
+
+    @Test
+    public void doubleStarMatchesAcrossSegments() {
+        final TransformerCondition condition = pathCondition("**/api/*.html");
+
+        assertTrue(condition.matchesPath("api/index.html"));
+        assertTrue(condition.matchesPath("modules/core/api/index.html"));
+        assertFalse(condition.matchesPath("modules/api/v1/index.html"));
+        assertTrue(pathCondition("docs/**").matchesPath("docs/a/b/c.html"));
+    }
+
+    @Test
+    public void globCharactersAreLiteral() {
+        final TransformerCondition condition = pathCondition("a+b(1).html");
+
+        assertTrue(condition.matchesPath("a+b(1).html"));
+        assertFalse(condition.matchesPath("aab1.html"));
+    }
+
+    @Test
+    public void anyMarkerMatches() {
+        final TransformerCondition condition = condition(null, new String[] {"<nav", "<aside"}, null);
+
+        assertTrue(condition.hasMarkers());
+        assertTrue(condition.matchesContent(bytes("<body><aside></aside></body>")));
+        assertTrue(condition.matchesContent(bytes("<nav>")));
+        assertFalse(condition.matchesContent(bytes("<body><na v></body>")));
+    }
+
+    @Test
+    public void markersAreOnlyMatchedBetweenPositionAndLimit() {
+        final TransformerCondition condition = condition(null, new String[] {"<nav"}, null);
+        final ByteBuffer content = bytes("<nav><p>text</p><nav");
+
+        content.position(1).limit(content.capacity() - 1);
+        assertFalse(condition.matchesContent(content));
+        assertEquals(1, content.position());
+
+        content.limit(content.capacity());
+        assertTrue(condition.matchesContent(content));
+    }
+
+    @Test
+    public void markersMatchUtf8Content() {
+        final TransformerCondition condition = condition(null, new String[] {"caf\u00e9"}, null);
+
+        assertTrue(condition.matchesContent(bytes("<p>Le caf\u00e9</p>")));
+        assertFalse(condition.matchesContent(bytes("<p>Le cafe</p>")));
+    }
+
+    @Test
+    public void requiredSelectorIsMatchedAgainstDocument() {
+        final TransformerCondition condition = condition(null, null, "table.api");
+        final Document withTable = Jsoup.parse("<table class=\"api\"></table>");
+        final Document withoutTable = Jsoup.parse("<table></table>");
+
+        assertTrue(condition.hasRequiredSelector());
+        assertTrue(condition.matchesDocument(withTable));
+        assertFalse(condition.matchesDocument(withoutTable));
+    }
+
+    @Test
+    public void undeclaredConditionsAlwaysHold() {
+        final TransformerCondition plain = new TransformerCondition((HtmlTransformer) document -> { });
+        final TransformerCondition declaresNothing = condition(null, null, null);
+
+        for (final TransformerCondition condition : new TransformerCondition[] {plain, declaresNothing}) {
+            assertFalse(condition.hasMarkers());
+            assertFalse(condition.hasRequiredSelector());
+            assertTrue(condition.matchesPath("any/page.css"));
+            assertTrue(condition.matchesContent(bytes("")));
+            assertTrue(condition.matchesDocument(Jsoup.parse("")));
+        }
+    }
+
+    @Test
+    public void hitsAndSkipsAreCounted() {
+        final TransformerCondition condition = pathCondition("*.html");
+
+        condition.recordHit();
+        condition.recordSkip();
+        condition.recordSkip();
+
+        assertEquals(1, condition.getHitCount());
+        assertEquals(2, condition.getSkipCount());
+    }
+
+    @Test
+    public void bundledTransformerOnlyAppliesToHtmlPages() throws Exception {
+        final TransformerCondition condition = new TransformerCondition(new IcfNextTransformer());
+        assertTrue(condition.matchesPath("index.html"));
+        assertTrue(condition.matchesPath("guide/setup.html"));
+        assertFalse(condition.matchesPath("css/site.css"));
+
+        final File page = new File(folder.getRoot(), "index.html");
+        final File script = new File(folder.getRoot(), "js/site.js");
+        Files.write(page.toPath(), "<html><body><h1>Title</h1></body></html>".getBytes(StandardCharsets.UTF_8));
+        Files.createDirectories(script.getParentFile().toPath());
+        Files.write(script.toPath(), "var site = {};".getBytes(StandardCharsets.UTF_8));
+        final Map<String, Object> transformHtml = new HashMap<>();
+        transformHtml.put("baseDir", folder.getRoot());
+        transformHtml.put("fileMask", "*");
+        transformHtml.put("transformers", Collections.singletonList(IcfNextTransformer.class.getName()));
+        transformHtml.put("linkGraphFile", new File(folder.newFolder("state"), "link-graph.txt"));
+
+        new MojoRunner(new SystemStreamLog()).run(HtmlTransformMojo.class, transformHtml);
+
+        final String transformed = new String(Files.readAllBytes(page.toPath()), StandardCharsets.UTF_8);
+        assertTrue(transformed.contains("title-container"));
+        assertEquals("var site = {};", new String(Files.readAllBytes(script.toPath()), StandardCharsets.UTF_8));
+    }
+
+    private static class Conditional implements HtmlTransformer, ConditionalTransformer {
+
+        private final String pathPattern;
+        private final String[] markers;
+        private final String requiredSelector;
+
+        private Conditional(final String pathPattern, final String[] markers, final String requiredSelector) {
+            this.pathPattern = pathPattern;
+            this.markers = markers;
+            this.requiredSelector = requiredSelector;
+        }
+
+        @Override
+        public void transform(final Document document) {
+        }
+
+        @Override
+        public String getPathPattern() {
+            return pathPattern;
+        }
+
+        @Override
+        public String[] getMarkers() {
+            return markers;
+        }
+
+        @Override
+        public String getRequiredSelector() {
+            return requiredSelector;
+        }
+    }
+}
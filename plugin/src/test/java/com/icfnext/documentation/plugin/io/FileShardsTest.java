@@ -0,0 +1,174 @@
+package com.icfnext.documentation.plugin.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FileShardsTest {
+
+    private static final String MARKDOWN = ".*\\.md";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void write(final File directory, final String path, final int size) throws IOException {
+        final File file = new File(directory, path);
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), new byte[size]);
+    }
+
+    private static Set<String> paths(final File baseDir, final Set<File> files) {
+        final Set<String> paths = new TreeSet<>();
+        for (final File file : files) {
+            paths.add(baseDir.toPath().relativize(file.toPath()).toString().replace('\\', '/'));
+        }
+        return paths;
+    }
+
+    private static long size(final Set<File> files) {
+        long size = 0;
+        for (final File file : files) {
+            size += file.length();
+        }
+        return size;
+    }
+
+    private static List<Set<File>> shards(final File baseDir, final int shardCount) {
+        final List<Set<File>> shards = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            shards.add(FileShards.select(baseDir, MARKDOWN, true, null, shard, shardCount));
+        }
+        return shards;
+    }
+
+    @Test
+    public void unshardedBuildSelectsNothing() throws IOException {
+        write(folder.getRoot(), "index.md", 10);
+
+        assertNull(FileShards.select(folder.getRoot(), MARKDOWN, true, null, 0, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shardCountMustBePositive() {
+        FileShards.select(folder.getRoot(), MARKDOWN, true, null, 0, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shardIndexMustBeBelowShardCount() {
+        FileShards.select(folder.getRoot(), MARKDOWN, true, null, 3, 3);
+    }
+
+    @Test
+    public void shardsPartitionTheMatchingFiles() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            write(folder.getRoot(), "section-" + i % 3 + "/page-" + i + ".md", 100 + i * 37 % 400);
+        }
+        write(folder.getRoot(), "style.css", 5000);
+
+        final List<Set<File>> shards = shards(folder.getRoot(), 3);
+
+        final Set<File> all = new HashSet<>();
+        for (final Set<File> shard : shards) {
+            assertTrue(shard.size() > 0);
+            for (final File file : shard) {
+                assertTrue(file.getName().endsWith(".md"));
+                assertTrue(file + " is in several shards", all.add(file));
+            }
+        }
+        assertEquals(20, all.size());
+    }
+
+    @Test
+    public void assignmentIsDeterministicAcrossRunsAndFileOrderings() throws IOException {
+        final List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            paths.add("dir-" + i % 4 + "/page-" + i + ".md");
+        }
+        final File first = folder.newFolder("first");
+        final File second = folder.newFolder("second");
+        for (final String path : paths) {
+            write(first, path, 50 + path.length() * 13 % 200);
+        }
+        final List<String> reversed = new ArrayList<>(paths);
+        Collections.reverse(reversed);
+        for (final String path : reversed) {
+            write(second, path, 50 + path.length() * 13 % 200);
+        }
+
+        for (int shard = 0; shard < 4; shard++) {
+            final Set<String> assigned = paths(first, FileShards.select(first, MARKDOWN, true, null, shard, 4));
+            assertEquals(assigned, paths(first, FileShards.select(first, MARKDOWN, true, null, shard, 4)));
+            assertEquals(assigned, paths(second, FileShards.select(second, MARKDOWN, true, null, shard, 4)));
+        }
+    }
+
+    @Test
+    public void largestFilesAreAssignedFirstToTheLeastLoadedShard() throws IOException {
+        for (final int size : new int[] {700, 500, 400, 300, 290, 210}) {
+            write(folder.getRoot(), "page-" + size + ".md", size);
+        }
+
+        final List<Set<File>> shards = shards(folder.getRoot(), 2);
+
+        // 700 -> 0, 500 -> 1, 400 -> 1 (900), 300 -> 0 (1000), 290 -> 1 (1190), 210 -> 0 (1210)
+        assertEquals(new TreeSet<>(Arrays.asList("page-210.md", "page-300.md", "page-700.md")),
+                paths(folder.getRoot(), shards.get(0)));
+        assertEquals(new TreeSet<>(Arrays.asList("page-290.md", "page-400.md", "page-500.md")),
+                paths(folder.getRoot(), shards.get(1)));
+        assertEquals(1210, size(shards.get(0)));
+        assertEquals(1190, size(shards.get(1)));
+    }
+
+    @Test
+    public void emptyFilesAreSpreadOverShards() throws IOException {
+        for (int i = 0; i < 6; i++) {
+            write(folder.getRoot(), "page-" + i + ".md", 0);
+        }
+
+        for (final Set<File> shard : shards(folder.getRoot(), 3)) {
+            assertEquals(2, shard.size());
+        }
+    }
+
+    @Test
+    public void excludedDirectoryIsNotPartitioned() throws IOException {
+        write(folder.getRoot(), "a.md", 100);
+        write(folder.getRoot(), "b.md", 100);
+        write(folder.getRoot(), "fragments/large.md", 10000);
+        final File fragments = new File(folder.getRoot(), "fragments");
+
+        final Set<File> shard0 = FileShards.select(folder.getRoot(), MARKDOWN, true, fragments, 0, 2);
+        final Set<File> shard1 = FileShards.select(folder.getRoot(), MARKDOWN, true, fragments, 1, 2);
+
+        // without the exclusion, the large fragment would take one shard, and both pages the other
+        assertEquals(1, shard0.size());
+        assertEquals(1, shard1.size());
+        assertEquals(new TreeSet<>(Arrays.asList("a.md", "b.md")),
+                new TreeSet<>(Arrays.asList(shard0.iterator().next().getName(), shard1.iterator().next().getName())));
+    }
+
+    @Test
+    public void stateFileNamesIncludeTheShard() {
+        final File file = new File("target/documentation/include-graph.txt");
+
+        assertEquals(file, FileShards.getStateFile(file, 0, 1));
+        assertEquals(new File("target/documentation/include-graph-shard-1-of-3.txt"),
+                FileShards.getStateFile(file, 1, 3));
+        assertEquals(new File("target/state-shard-0-of-2"), FileShards.getStateFile(new File("target/state"), 0, 2));
+    }
+}
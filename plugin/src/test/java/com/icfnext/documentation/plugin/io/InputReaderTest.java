@@ -0,0 +1,134 @@
+package com.icfnext.documentation.plugin.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class InputReaderTest {
+
+    private static final byte[] BOM = {(byte) 0xef, (byte) 0xbb, (byte) 0xbf};
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private int files;
+
+    private File file(final byte[]... parts) throws IOException {
+        final File file = new File(folder.getRoot(), "file-" + files++ + ".html");
+        int length = 0;
+        for (final byte[] part : parts) {
+            length += part.length;
+        }
+        final ByteBuffer content = ByteBuffer.allocate(length);
+        for (final byte[] part : parts) {
+            content.put(part);
+        }
+        Files.write(file.toPath(), content.array());
+        return file;
+    }
+
+    private static byte[] utf8(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String largeText() {
+        final char[] chars = new char[InputReader.MAP_THRESHOLD + 1000];
+        Arrays.fill(chars, 'a');
+        chars[0] = '\u00e9';
+        chars[chars.length - 1] = 'z';
+        return new String(chars);
+    }
+
+    @Test
+    public void readsUtf8() throws IOException {
+        assertEquals("caf\u00e9 \u2603", InputReader.read(file(utf8("caf\u00e9 \u2603"))));
+    }
+
+    @Test
+    public void readsEmptyFile() throws IOException {
+        assertEquals("", InputReader.read(file()));
+        assertEquals("", InputReader.readForRewrite(file(BOM)));
+    }
+
+    @Test
+    public void skipsByteOrderMark() throws IOException {
+        final File file = file(BOM, utf8("<p>x</p>"));
+
+        assertEquals("<p>x</p>", InputReader.read(file));
+        assertEquals("<p>x</p>", InputReader.readForRewrite(file));
+    }
+
+    @Test
+    public void replacesMalformedInput() throws IOException {
+        final File file = file(utf8("a"), new byte[] {(byte) 0xc3, (byte) 0x28}, utf8("b"), new byte[] {(byte) 0xff});
+
+        assertEquals("a\ufffd(b\ufffd", InputReader.read(file));
+    }
+
+    @Test
+    public void filterSeesBytesAfterByteOrderMark() throws IOException {
+        final File file = file(BOM, utf8("<nav>"));
+
+        assertEquals("<nav>", InputReader.read(file, bytes -> bytes.get(bytes.position()) == '<'));
+        assertNull(InputReader.readForRewrite(file, bytes -> bytes.remaining() != 5));
+    }
+
+    @Test
+    public void filterCannotModifyContent() throws IOException {
+        final File file = file(utf8("abc"));
+
+        assertEquals("abc", InputReader.read(file, ByteBuffer::isReadOnly));
+    }
+
+    @Test
+    public void readsLargeFileThroughMapping() throws IOException {
+        final String text = largeText();
+        final File file = file(BOM, utf8(text));
+
+        assertTrue(file.length() > InputReader.MAP_THRESHOLD);
+        assertEquals(text, InputReader.read(file));
+    }
+
+    @Test
+    public void largeFileReadForRewriteCanBeReplaced() throws IOException {
+        final String text = largeText();
+        final File file = file(utf8(text));
+        final File replacement = file(utf8("small"));
+
+        assertEquals(text, InputReader.readForRewrite(file));
+        Files.move(replacement.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        assertEquals("small", InputReader.read(file));
+    }
+
+    @Test
+    public void readsPrefix() throws IOException {
+        final File file = file(utf8("0123456789"));
+
+        final ByteBuffer prefix = InputReader.readPrefix(file, 4);
+        assertEquals(4, prefix.remaining());
+        assertEquals('3', prefix.get(3));
+        assertEquals(10, InputReader.readPrefix(file, 100).remaining());
+    }
+
+    @Test
+    public void prefixesAreNotShared() throws IOException {
+        final ByteBuffer first = InputReader.readPrefix(file(utf8("first")), 16);
+        InputReader.readPrefix(file(utf8("other")), 16);
+
+        assertEquals('f', first.get(0));
+        assertNotSame(first, InputReader.readPrefix(file(utf8("first")), 16));
+    }
+}
@@ -0,0 +1,117 @@
+package com.icfnext.documentation.plugin.io;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OutputWriterTest {
+
+    private static final long OLD_MTIME = 1000000000000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final OutputWriter writer = new OutputWriter(StandardCharsets.UTF_8);
+
+    private File existing(final String name, final String content) throws IOException {
+        final File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        assertTrue(file.setLastModified(OLD_MTIME));
+        return file;
+    }
+
+    private static String read(final File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void unchangedFileIsNotWritten() throws IOException {
+        final File file = existing("page.html", "<p>same</p>");
+
+        assertFalse(writer.write(file, "<p>same</p>"));
+        assertEquals(OLD_MTIME, file.lastModified());
+        assertEquals(0, writer.getWrittenCount());
+        assertEquals(1, writer.getUnchangedCount());
+    }
+
+    @Test
+    public void changedFileIsWritten() throws IOException {
+        final File file = existing("page.html", "<p>old</p>");
+
+        assertTrue(writer.write(file, "<p>a new page</p>"));
+        assertEquals("<p>a new page</p>", read(file));
+        assertEquals(1, writer.getWrittenCount());
+    }
+
+    @Test
+    public void sameSizeDifferentContentIsWritten() throws IOException {
+        final File file = existing("page.html", "<p>abc</p>");
+
+        assertTrue(writer.write(file, "<p>abd</p>"));
+        assertEquals("<p>abd</p>", read(file));
+    }
+
+    @Test
+    public void missingFileAndParentsAreCreated() throws IOException {
+        final File file = new File(folder.getRoot(), "a/b/page.html");
+
+        assertTrue(writer.write(file, "x"));
+        assertEquals("x", read(file));
+    }
+
+    @Test
+    public void shortFileNamesAreWritten() throws IOException {
+        final File file = existing("x", "old");
+
+        assertTrue(writer.write(file, "new"));
+        assertTrue(writer.write(new File(folder.getRoot(), "a.js"), "var a;"));
+        assertEquals("new", read(file));
+        assertEquals("var a;", read(new File(folder.getRoot(), "a.js")));
+        assertEquals(2, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void copyOnlyWritesChangedDestinations() throws IOException {
+        final File source = existing("a.css", "a{}");
+        final File destination = existing("b", "a{}");
+
+        assertFalse(writer.copy(source, destination));
+        assertEquals(OLD_MTIME, destination.lastModified());
+
+        Files.write(source.toPath(), "b{}".getBytes(StandardCharsets.UTF_8));
+        assertTrue(writer.copy(source, destination));
+        assertArrayEquals(Files.readAllBytes(source.toPath()), Files.readAllBytes(destination.toPath()));
+    }
+
+    @Test
+    public void commitKeepsUnchangedTarget() throws IOException {
+        final File target = existing("p", "content");
+        final File tempFile = writer.createTempFile(target);
+        Files.write(tempFile.toPath(), "content".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(writer.commit(tempFile, target));
+        assertEquals(OLD_MTIME, target.lastModified());
+        assertFalse(tempFile.exists());
+    }
+
+    @Test
+    public void commitReplacesChangedTarget() throws IOException {
+        final File target = existing("p", "content");
+        final File tempFile = writer.createTempFile(target);
+        Files.write(tempFile.toPath(), "other!!".getBytes(StandardCharsets.UTF_8));
+
+        assertTrue(writer.commit(tempFile, target));
+        assertEquals("other!!", read(target));
+        assertFalse(tempFile.exists());
+    }
+}
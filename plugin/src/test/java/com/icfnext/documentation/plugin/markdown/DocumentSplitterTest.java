@@ -0,0 +1,143 @@
+package com.icfnext.documentation.plugin.markdown;
+
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Document;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DocumentSplitterTest {
+
+    private final Parser parser = Parser.builder().build();
+
+    private SplitDocument split(final int headingLevel, final int sizeThreshold, final String markdown) {
+        final Document document = parser.parse(markdown);
+        return new DocumentSplitter(headingLevel, sizeThreshold).split(document, "guide");
+    }
+
+    private static List<String> fileNames(final SplitDocument split) {
+        final List<String> names = new ArrayList<>();
+        for (final DocumentPart part : split.getParts()) {
+            names.add(part.getFileName());
+        }
+        return names;
+    }
+
+    @Test
+    public void documentWithoutSplitPointsHasSinglePart() {
+        final SplitDocument split = split(1, 0, "Intro text\n\n## Details\n\nMore text\n");
+
+        assertFalse(split.isSplit());
+        assertEquals(1, split.getParts().size());
+        assertEquals("guide.html", split.getParts().get(0).getFileName());
+    }
+
+    @Test
+    public void splitsAtHeadingLevelAndNamesParts() {
+        final SplitDocument split = split(1, 0,
+                "# Install\n\nText\n\n## Requirements\n\nText\n\n# Configure\n\nText\n\n# Run\n\nText\n");
+
+        assertTrue(split.isSplit());
+        assertEquals(3, split.getParts().size());
+        assertEquals("[guide.html, guide-2.html, guide-3.html]", fileNames(split).toString());
+        assertEquals("Install", split.getParts().get(0).getTitle());
+        assertEquals("[Install, Requirements]", split.getParts().get(0).getHeadingTitles().toString());
+        assertEquals("Configure", split.getParts().get(1).getTitle());
+        assertEquals("Run", split.getParts().get(2).getTitle());
+    }
+
+    @Test
+    public void leadingContentBeforeFirstHeadingStaysInFirstPart() {
+        final SplitDocument split = split(1, 0, "Preamble\n\n# First\n\nText\n\n# Second\n\nText\n");
+
+        assertEquals(3, split.getParts().size());
+        assertTrue(split.getParts().get(0).getHeadings().isEmpty());
+        assertEquals("First", split.getParts().get(1).getTitle());
+    }
+
+    @Test
+    public void collidingSlugsAreNumbered() {
+        final SplitDocument split = split(1, 0,
+                "# Setup\n\n## Options\n\n# Setup\n\n## Options\n\n# Setup!\n\n# ???\n");
+
+        final List<String> ids = new ArrayList<>(split.getHeadingIds().values());
+        ids.sort(null);
+        assertEquals("[options, options-1, section, setup, setup-1, setup-2]", ids.toString());
+
+        final DocumentPart second = split.getParts().get(1);
+        assertEquals("setup-1", split.getHeadingIds().get(second.getHeadings().get(0)));
+        assertEquals("options-1", split.getHeadingIds().get(second.getHeadings().get(1)));
+    }
+
+    @Test
+    public void slugDoesNotCollideWithNumberedSuffixOfEarlierHeading() {
+        final SplitDocument split = split(0, 0, "# Step\n\n# Step\n\n# Step 1\n");
+
+        final List<String> ids = new ArrayList<>(split.getHeadingIds().values());
+        ids.sort(null);
+        assertEquals("[step, step-1, step-1-1]", ids.toString());
+    }
+
+    @Test
+    public void anchorRewritesPointAtOtherParts() {
+        final SplitDocument split = split(1, 0,
+                "# Install\n\n## Requirements\n\n# Configure\n\n## Options\n\n# Run\n");
+        final DocumentPart first = split.getParts().get(0);
+        final DocumentPart second = split.getParts().get(1);
+
+        final Map<String, String> fromFirst = split.getAnchorRewrites(first);
+        assertFalse(fromFirst.containsKey("#install"));
+        assertFalse(fromFirst.containsKey("#requirements"));
+        assertEquals("guide-2.html#configure", fromFirst.get("#configure"));
+        assertEquals("guide-2.html#options", fromFirst.get("#options"));
+        assertEquals("guide-3.html#run", fromFirst.get("#run"));
+
+        final Map<String, String> fromSecond = split.getAnchorRewrites(second);
+        assertEquals("guide.html#install", fromSecond.get("#install"));
+        assertEquals("guide.html#requirements", fromSecond.get("#requirements"));
+        assertFalse(fromSecond.containsKey("#options"));
+        assertEquals("guide-3.html#run", fromSecond.get("#run"));
+    }
+
+    @Test
+    public void anchorRewritesUseCollisionSuffixedIds() {
+        final SplitDocument split = split(1, 0, "# Usage\n\n# Usage\n");
+
+        assertEquals("guide-2.html#usage-1", split.getAnchorRewrites(split.getParts().get(0)).get("#usage-1"));
+        assertEquals("guide.html#usage", split.getAnchorRewrites(split.getParts().get(1)).get("#usage"));
+    }
+
+    @Test
+    public void firstPartRedirectsAnchorsOfOtherParts() {
+        final SplitDocument split = split(1, 0, "# Install\n\n## Requirements\n\n# Configure\n\n# Run\n");
+        final MarkdownConverter converter = new MarkdownConverter(new SystemStreamLog(), false);
+
+        final String first = converter.renderPart(split, split.getParts().get(0));
+        assertTrue(first, first.contains(
+                "var parts={\"#configure\":\"guide-2.html#configure\",\"#run\":\"guide-3.html#run\"}"));
+        assertFalse(first.contains("\"#requirements\""));
+        assertFalse(converter.renderPart(split, split.getParts().get(1)).contains("<script"));
+    }
+
+    @Test
+    public void sizeThresholdSplitsAtNextHeadingOfAnyLevel() {
+        final StringBuilder markdown = new StringBuilder("# Start\n\n");
+        for (int i = 0; i < 20; i++) {
+            markdown.append("A paragraph of filler text to grow the part.\n\n");
+        }
+        markdown.append("### Deep\n\nText\n\n#### Deeper\n\nText\n");
+
+        final SplitDocument split = split(0, 200, markdown.toString());
+
+        assertEquals(2, split.getParts().size());
+        assertEquals("Deep", split.getParts().get(1).getTitle());
+        assertEquals("[Deep, Deeper]", split.getParts().get(1).getHeadingTitles().toString());
+    }
+}
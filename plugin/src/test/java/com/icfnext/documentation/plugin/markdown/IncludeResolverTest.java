@@ -0,0 +1,149 @@
+package com.icfnext.documentation.plugin.markdown;
+
+import com.vladsch.flexmark.util.ast.Document;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class IncludeResolverTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MarkdownConverter converter;
+    private File baseDir;
+
+    @Before
+    public void createConverter() {
+        converter = new MarkdownConverter(new SystemStreamLog(), true);
+        baseDir = folder.getRoot();
+    }
+
+    private File write(final String path, final String markdown) throws IOException {
+        final File file = new File(baseDir, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), markdown.getBytes(StandardCharsets.UTF_8));
+        return file.getAbsoluteFile();
+    }
+
+    private IncludeResolver.Includes resolve(final File fragmentDir, final File page) throws IOException {
+        final String markdown = new String(Files.readAllBytes(page.toPath()), StandardCharsets.UTF_8);
+        return new IncludeResolver(converter, baseDir, fragmentDir).resolve(page, converter.parse(markdown));
+    }
+
+    private void assertResolveFails(final File fragmentDir, final File page, final String message) {
+        try {
+            resolve(fragmentDir, page);
+            fail("Expected failure: " + message);
+        } catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+
+    @Test
+    public void resolvesNestedIncludesRelativeToIncludingFile() throws IOException {
+        final File page = write("page.md", "# Page\n\n{{include parts/a.md}}\n");
+        final File a = write("parts/a.md", "Fragment A\n\n{{include b.md}}\n");
+        final File b = write("parts/b.md", "Fragment B\n");
+
+        final IncludeResolver.Includes includes = resolve(null, page);
+
+        assertEquals(Arrays.asList(a, b), new ArrayList<>(includes.getFragments()));
+        assertEquals(2, includes.getReplacements().size());
+    }
+
+    @Test
+    public void resolvesIncludesAgainstFragmentDir() throws IOException {
+        final File fragmentDir = new File(baseDir, "fragments");
+        final File page = write("docs/page.md", "{{include note.md}}\n");
+        final File note = write("fragments/note.md", "{{include nested/warning.md}}\n");
+        final File warning = write("fragments/nested/warning.md", "Warning\n");
+
+        final IncludeResolver.Includes includes = resolve(fragmentDir, page);
+
+        assertEquals(Arrays.asList(note, warning), new ArrayList<>(includes.getFragments()));
+    }
+
+    @Test
+    public void rendersFragmentsInPlaceOfDirectives() throws IOException {
+        final File page = write("page.md", "Before\n\n{{include a.md}}\n\nAfter\n");
+        write("a.md", "Included *text*\n");
+        final Document document = converter.parse("Before\n\n{{include a.md}}\n\nAfter\n");
+
+        final IncludeResolver.Includes includes =
+                new IncludeResolver(converter, baseDir, null).resolve(page, document);
+        final String html = converter.render(document, includes.getReplacements());
+
+        assertTrue(html, html.contains("<em>text</em>"));
+        assertFalse(html, html.contains("{{include"));
+        assertTrue(html, html.indexOf("Before") < html.indexOf("Included"));
+        assertTrue(html, html.indexOf("Included") < html.indexOf("After"));
+    }
+
+    @Test
+    public void ignoresDirectivesThatAreNotWholeParagraphs() throws IOException {
+        final File page = write("page.md", "See {{include a.md}} for details\n\n`{{include a.md}}`\n");
+
+        final IncludeResolver.Includes includes = resolve(null, page);
+
+        assertTrue(includes.getFragments().isEmpty());
+        assertTrue(includes.getReplacements().isEmpty());
+    }
+
+    @Test
+    public void sharesFragmentIncludedTwice() throws IOException {
+        final File page = write("page.md", "{{include a.md}}\n\nBetween\n\n{{include a.md}}\n");
+        final File a = write("a.md", "Fragment\n");
+
+        final IncludeResolver.Includes includes = resolve(null, page);
+
+        assertEquals(Arrays.asList(a), new ArrayList<>(includes.getFragments()));
+        assertEquals(2, includes.getReplacements().size());
+        assertEquals(1, new java.util.HashSet<>(includes.getReplacements().values()).size());
+    }
+
+    @Test
+    public void reportsMissingFragment() throws IOException {
+        final File page = write("page.md", "{{include missing.md}}\n");
+
+        assertResolveFails(null, page, "Included file not found: missing.md (included from page.md)");
+    }
+
+    @Test
+    public void reportsMissingNestedFragment() throws IOException {
+        final File page = write("page.md", "{{include parts/a.md}}\n");
+        write("parts/a.md", "{{include ../gone.md}}\n");
+
+        assertResolveFails(null, page, "Included file not found: ../gone.md (included from parts/a.md)");
+    }
+
+    @Test
+    public void reportsCycleWithEveryFileInvolved() throws IOException {
+        final File page = write("page.md", "{{include a.md}}\n");
+        write("a.md", "{{include parts/b.md}}\n");
+        write("parts/b.md", "{{include ../a.md}}\n");
+
+        assertResolveFails(null, page, "Include cycle: page.md -> a.md -> parts/b.md -> a.md");
+    }
+
+    @Test
+    public void reportsPageIncludingItself() throws IOException {
+        final File page = write("page.md", "Text\n\n{{include page.md}}\n");
+
+        assertResolveFails(null, page, "Include cycle: page.md -> page.md");
+    }
+}
@@ -0,0 +1,70 @@
+package com.icfnext.documentation.plugin.report;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.assertEquals;
+
+public class PageMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private PageMetrics measure(final String html) throws IOException {
+        final File page = new File(folder.getRoot(), "page.html");
+        Files.write(page.toPath(), html.getBytes(StandardCharsets.UTF_8));
+        return PageMetrics.measure(page, "page.html", folder.getRoot(), new ConcurrentHashMap<>());
+    }
+
+    private void writeAsset(final String name, final int size) throws IOException {
+        Files.write(new File(folder.getRoot(), name).toPath(), new byte[size]);
+    }
+
+    @Test
+    public void countsDataUrisInUrlAttributes() throws IOException {
+        final PageMetrics metrics = measure("<img src=\"data:image/png;base64,AAAA\">"
+                + "<a href=\"DATA:text/plain,x\">x</a>");
+
+        assertEquals("data:image/png;base64,AAAA".length() + "DATA:text/plain,x".length(),
+                metrics.getInlineDataBytes());
+        assertEquals(0, metrics.getResourceCount());
+    }
+
+    @Test
+    public void ignoresDataPrefixInOtherAttributes() throws IOException {
+        final PageMetrics metrics = measure("<img alt=\"data: a table\" title=\"data:x\" data-src=\"data:abc\">");
+
+        assertEquals(0, metrics.getInlineDataBytes());
+    }
+
+    @Test
+    public void countsDataUrisInCss() throws IOException {
+        final PageMetrics metrics = measure("<style>a { background: url('data:abc') }</style>"
+                + "<div style=\"background: url(data:de)\"></div>");
+
+        assertEquals("data:abc".length() + "data:de".length(), metrics.getInlineDataBytes());
+    }
+
+    @Test
+    public void countsPreloadedResources() throws IOException {
+        writeAsset("font.woff2", 100);
+        writeAsset("app.js", 20);
+        writeAsset("style.css", 3);
+        final PageMetrics metrics = measure("<head>"
+                + "<link rel=\"preload\" href=\"font.woff2\" as=\"font\" crossorigin>"
+                + "<link rel=\"modulepreload\" href=\"app.js\">"
+                + "<link rel=\"preload\" href=\"style.css\" as=\"style\"><link rel=\"stylesheet\" href=\"style.css\">"
+                + "<link rel=\"canonical\" href=\"page.html\">"
+                + "</head>");
+
+        assertEquals(3, metrics.getResourceCount());
+        assertEquals(123, metrics.getAssetBytes());
+    }
+}